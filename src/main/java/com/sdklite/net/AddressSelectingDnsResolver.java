@@ -0,0 +1,46 @@
+package com.sdklite.net;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+
+/**
+ * The {@link DnsResolver} decorator which orders the resolved addresses by the
+ * specified {@link AddressSelector}
+ *
+ * @author johnsonlee
+ *
+ */
+public class AddressSelectingDnsResolver implements DnsResolver {
+
+    private final DnsResolver delegate;
+
+    private final AddressSelector selector;
+
+    /**
+     * Create an instance with the resolver and the selector
+     *
+     * @param delegate
+     *            The resolver to be decorated
+     * @param selector
+     *            The address selector
+     */
+    public AddressSelectingDnsResolver(final DnsResolver delegate, final AddressSelector selector) {
+        if (null == delegate) {
+            throw new IllegalArgumentException("Delegate resolver is required");
+        }
+
+        if (null == selector) {
+            throw new IllegalArgumentException("Address selector is required");
+        }
+
+        this.delegate = delegate;
+        this.selector = selector;
+    }
+
+    @Override
+    public List<InetAddress> resolve(final String hostname) throws UnknownHostException {
+        return this.selector.select(hostname, this.delegate.resolve(hostname));
+    }
+
+}
@@ -0,0 +1,132 @@
+package com.sdklite.net;
+
+import java.net.Inet4Address;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * {@link AddressSelector} is used for ordering the resolved addresses of a
+ * hostname, the connection should be attempted in the returned order
+ *
+ * @author johnsonlee
+ *
+ * @see AddressSelectingDnsResolver
+ */
+public interface AddressSelector {
+
+    /**
+     * The destination address selection as defined in
+     * <a href="https://tools.ietf.org/html/rfc6724#section-6">RFC 6724</a>
+     *
+     * <p>
+     * Only the rules which don't depend on the source address are applied,
+     * the addresses are sorted by the precedence of default policy table, then
+     * by the scope in ascending order, and the order of resolver is kept for
+     * the ties.
+     * </p>
+     */
+    public static final AddressSelector RFC_6724 = new AddressSelector() {
+
+        private final Comparator<InetAddress> comparator = new Comparator<InetAddress>() {
+            @Override
+            public int compare(final InetAddress a, final InetAddress b) {
+                // Rule 6: Prefer higher precedence
+                final int pa = precedence(a), pb = precedence(b);
+                if (pa != pb) {
+                    return pa > pb ? -1 : 1;
+                }
+
+                // Rule 8: Prefer smaller scope
+                final int sa = scope(a), sb = scope(b);
+                if (sa != sb) {
+                    return sa < sb ? -1 : 1;
+                }
+
+                // Rule 10: Otherwise, leave the order unchanged
+                return 0;
+            }
+
+            private int precedence(final InetAddress address) {
+                if (address instanceof Inet4Address) {
+                    return 35; // ::ffff:0:0/96
+                }
+
+                final byte[] a = address.getAddress();
+                if (address.isLoopbackAddress()) {
+                    return 50; // ::1/128
+                }
+
+                if (a[0] == 0x20 && a[1] == 0x02) {
+                    return 30; // 2002::/16
+                }
+
+                if (a[0] == 0x20 && a[1] == 0x01 && a[2] == 0 && a[3] == 0) {
+                    return 5; // 2001::/32
+                }
+
+                if ((a[0] & 0xfe) == 0xfc) {
+                    return 3; // fc00::/7
+                }
+
+                if ((a[0] & 0xff) == 0xfe && (a[1] & 0xc0) == 0xc0) {
+                    return 1; // fec0::/10
+                }
+
+                if (a[0] == 0x3f && (a[1] & 0xff) == 0xfe) {
+                    return 1; // 3ffe::/16
+                }
+
+                for (int i = 0; i < 12; i++) {
+                    if (0 != a[i]) {
+                        return 40; // ::/0
+                    }
+                }
+
+                return 1; // ::/96
+            }
+
+            private int scope(final InetAddress address) {
+                if (address.isMulticastAddress()) {
+                    return address instanceof Inet6Address ? address.getAddress()[1] & 0x0f : 14;
+                }
+
+                if (address.isLoopbackAddress() || address.isLinkLocalAddress()) {
+                    return 2;
+                }
+
+                if (address instanceof Inet6Address && address.isSiteLocalAddress()) {
+                    return 5;
+                }
+
+                return 14;
+            }
+        };
+
+        @Override
+        public List<InetAddress> select(final String hostname, final List<InetAddress> addresses) {
+            if (addresses.size() < 2) {
+                return addresses;
+            }
+
+            final List<InetAddress> sorted = new ArrayList<InetAddress>(addresses);
+            Collections.sort(sorted, this.comparator);
+            return Collections.unmodifiableList(sorted);
+        }
+    };
+
+    /**
+     * Returns the addresses of the specified hostname in order of preference
+     *
+     * @param hostname
+     *            The hostname
+     * @param addresses
+     *            The resolved addresses
+     * @return the addresses in order of preference
+     */
+    public List<InetAddress> select(final String hostname, final List<InetAddress> addresses);
+
+}
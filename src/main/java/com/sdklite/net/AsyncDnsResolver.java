@@ -0,0 +1,27 @@
+package com.sdklite.net;
+
+import java.net.InetAddress;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The non-blocking variant of {@link DnsResolver}
+ *
+ * @author johnsonlee
+ *
+ * @see CoalescingDnsResolver
+ */
+public interface AsyncDnsResolver {
+
+    /**
+     * Resolve the specified hostname as IP address asynchronously
+     *
+     * @param hostname
+     *            The hostname to be resolved
+     * @return the future of resolved IP address, which is completed
+     *         exceptionally with {@link java.net.UnknownHostException} if the
+     *         hostname could not be resolved
+     */
+    public CompletableFuture<List<InetAddress>> resolveAsync(final String hostname);
+
+}
@@ -0,0 +1,407 @@
+package com.sdklite.net;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@link DnsResolver} decorator which caches the resolved addresses
+ *
+ * <p>
+ * Each entry expires after its TTL. The failures are cached for the negative
+ * TTL. An expired entry is still served within the stale period while it is
+ * refreshed in background, so that the lookup doesn't block the caller. The
+ * reads are lock-free, and the number of entries is bounded.
+ * </p>
+ *
+ * @author johnsonlee
+ *
+ */
+public class CachingDnsResolver implements DnsResolver {
+
+    private static final class Entry {
+
+        final List<InetAddress> addresses;
+
+        final String failure;
+
+        final long expiresAt;
+
+        final long staleUntil;
+
+        final AtomicBoolean refreshing = new AtomicBoolean();
+
+        Entry(final List<InetAddress> addresses, final String failure, final long expiresAt, final long staleUntil) {
+            this.addresses = addresses;
+            this.failure = failure;
+            this.expiresAt = expiresAt;
+            this.staleUntil = staleUntil;
+        }
+    }
+
+    private final DnsResolver delegate;
+
+    private final long ttl;
+
+    private final Map<String, Long> ttls;
+
+    private final long negativeTtl;
+
+    private final long maxStale;
+
+    private final int maxSize;
+
+    private final Executor executor;
+
+    private final ConcurrentMap<String, Entry> cache = new ConcurrentHashMap<String, Entry>();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong staleHits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong refreshes = new AtomicLong();
+
+    private final AtomicLong refreshFailures = new AtomicLong();
+
+    private final AtomicLong refreshLatency = new AtomicLong();
+
+    private CachingDnsResolver(final Builder builder) {
+        this.delegate = builder.delegate;
+        this.ttl = builder.ttl;
+        this.ttls = new HashMap<String, Long>(builder.ttls);
+        this.negativeTtl = builder.negativeTtl;
+        this.maxStale = builder.maxStale;
+        this.maxSize = builder.maxSize;
+        this.executor = null != builder.executor ? builder.executor : newDefaultExecutor();
+    }
+
+    @Override
+    public List<InetAddress> resolve(final String hostname) throws UnknownHostException {
+        final long now = System.nanoTime();
+        final Entry entry = this.cache.get(hostname);
+
+        if (null != entry) {
+            if (now - entry.expiresAt < 0) {
+                this.hits.incrementAndGet();
+                return get(hostname, entry);
+            }
+
+            if (null == entry.failure && now - entry.staleUntil < 0) {
+                this.staleHits.incrementAndGet();
+                refresh(hostname, entry);
+                return entry.addresses;
+            }
+        }
+
+        this.misses.incrementAndGet();
+        return get(hostname, load(hostname));
+    }
+
+    /**
+     * Remove all cached entries
+     */
+    public void clear() {
+        this.cache.clear();
+    }
+
+    /**
+     * Returns the number of cached entries
+     */
+    public int size() {
+        return this.cache.size();
+    }
+
+    /**
+     * Returns the number of lookups served by fresh entries
+     */
+    public long getHitCount() {
+        return this.hits.get();
+    }
+
+    /**
+     * Returns the number of lookups served by stale entries
+     */
+    public long getStaleHitCount() {
+        return this.staleHits.get();
+    }
+
+    /**
+     * Returns the number of lookups resolved by the delegate
+     */
+    public long getMissCount() {
+        return this.misses.get();
+    }
+
+    /**
+     * Returns the ratio of lookups served from cache, including the stale
+     * entries
+     */
+    public double getHitRate() {
+        final long hits = this.hits.get() + this.staleHits.get();
+        final long total = hits + this.misses.get();
+        return total > 0 ? (double) hits / total : 0;
+    }
+
+    /**
+     * Returns the number of completed background refreshes
+     */
+    public long getRefreshCount() {
+        return this.refreshes.get();
+    }
+
+    /**
+     * Returns the number of failed background refreshes
+     */
+    public long getRefreshFailureCount() {
+        return this.refreshFailures.get();
+    }
+
+    /**
+     * Returns the average latency of background refreshes
+     *
+     * @param unit
+     *            The time unit of result
+     * @return the average latency
+     */
+    public long getAverageRefreshLatency(final TimeUnit unit) {
+        final long count = this.refreshes.get() + this.refreshFailures.get();
+        return count > 0 ? unit.convert(this.refreshLatency.get() / count, TimeUnit.NANOSECONDS) : 0;
+    }
+
+    private static List<InetAddress> get(final String hostname, final Entry entry) throws UnknownHostException {
+        if (null != entry.failure) {
+            throw new UnknownHostException(entry.failure);
+        }
+
+        return entry.addresses;
+    }
+
+    private Entry load(final String hostname) {
+        Entry entry;
+
+        try {
+            entry = newEntry(hostname, this.delegate.resolve(hostname));
+        } catch (final UnknownHostException e) {
+            final long now = System.nanoTime();
+            entry = new Entry(null, null != e.getMessage() ? e.getMessage() : hostname, now + this.negativeTtl, now + this.negativeTtl);
+        }
+
+        put(hostname, entry);
+        return entry;
+    }
+
+    private Entry newEntry(final String hostname, final List<InetAddress> addresses) {
+        final Long override = this.ttls.isEmpty() ? null : this.ttls.get(hostname.toLowerCase(Locale.US));
+        final long ttl = null != override ? override : this.ttl;
+        final long now = System.nanoTime();
+        return new Entry(Collections.unmodifiableList(new ArrayList<InetAddress>(addresses)), null, now + ttl, now + ttl + this.maxStale);
+    }
+
+    private void refresh(final String hostname, final Entry entry) {
+        if (!entry.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            this.executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    final long start = System.nanoTime();
+
+                    try {
+                        put(hostname, newEntry(hostname, delegate.resolve(hostname)));
+                        refreshes.incrementAndGet();
+                    } catch (final Throwable e) {
+                        // keep serving the stale entry, the next lookup will retry
+                        refreshFailures.incrementAndGet();
+                        entry.refreshing.set(false);
+                    } finally {
+                        refreshLatency.addAndGet(System.nanoTime() - start);
+                    }
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            entry.refreshing.set(false);
+        }
+    }
+
+    private void put(final String hostname, final Entry entry) {
+        this.cache.put(hostname, entry);
+
+        if (this.cache.size() <= this.maxSize) {
+            return;
+        }
+
+        // evict a quarter of entries per scan, so that the scan is amortized
+        // over the following insertions, the dead entries are evicted first
+        final int target = this.maxSize - Math.max(1, this.maxSize / 4);
+        final long now = System.nanoTime();
+        for (final Iterator<Map.Entry<String, Entry>> i = this.cache.entrySet().iterator(); i.hasNext();) {
+            if (now - i.next().getValue().staleUntil >= 0) {
+                i.remove();
+            }
+        }
+
+        for (final Iterator<String> i = this.cache.keySet().iterator(); i.hasNext() && this.cache.size() > target;) {
+            if (!hostname.equals(i.next())) {
+                i.remove();
+            }
+        }
+    }
+
+    private static Executor newDefaultExecutor() {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(2, 2, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(1024), new DaemonThreadFactory("dns-refresh"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Represents the builder of {@link CachingDnsResolver}
+     *
+     * @author johnsonlee
+     *
+     */
+    public static final class Builder {
+
+        private final DnsResolver delegate;
+
+        private long ttl = TimeUnit.SECONDS.toNanos(60);
+
+        private final Map<String, Long> ttls = new HashMap<String, Long>();
+
+        private long negativeTtl = TimeUnit.SECONDS.toNanos(10);
+
+        private long maxStale = TimeUnit.MINUTES.toNanos(5);
+
+        private int maxSize = 1024;
+
+        private Executor executor;
+
+        /**
+         * Create a builder with the resolver to be decorated
+         *
+         * @param delegate
+         *            The resolver to be decorated
+         */
+        public Builder(final DnsResolver delegate) {
+            if (null == delegate) {
+                throw new IllegalArgumentException("Delegate resolver is required");
+            }
+
+            this.delegate = delegate;
+        }
+
+        /**
+         * Sets the TTL of resolved addresses, 60 seconds by default
+         *
+         * @param ttl
+         *            The TTL
+         * @param unit
+         *            The time unit of TTL
+         * @return this builder
+         */
+        public Builder setTtl(final long ttl, final TimeUnit unit) {
+            this.ttl = unit.toNanos(ttl);
+            return this;
+        }
+
+        /**
+         * Sets the TTL of resolved addresses of the specified host, which
+         * overrides the default TTL
+         *
+         * @param hostname
+         *            The hostname
+         * @param ttl
+         *            The TTL
+         * @param unit
+         *            The time unit of TTL
+         * @return this builder
+         */
+        public Builder setTtl(final String hostname, final long ttl, final TimeUnit unit) {
+            this.ttls.put(hostname.toLowerCase(Locale.US), unit.toNanos(ttl));
+            return this;
+        }
+
+        /**
+         * Sets the TTL of resolution failures, 10 seconds by default
+         *
+         * @param ttl
+         *            The TTL
+         * @param unit
+         *            The time unit of TTL
+         * @return this builder
+         */
+        public Builder setNegativeTtl(final long ttl, final TimeUnit unit) {
+            this.negativeTtl = unit.toNanos(ttl);
+            return this;
+        }
+
+        /**
+         * Sets the period after expiration during which the stale addresses are
+         * served while refreshing in background, 5 minutes by default, 0 to
+         * disable stale-while-revalidate
+         *
+         * @param maxStale
+         *            The stale period
+         * @param unit
+         *            The time unit of stale period
+         * @return this builder
+         */
+        public Builder setMaxStale(final long maxStale, final TimeUnit unit) {
+            this.maxStale = unit.toNanos(maxStale);
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of cached hostnames, 1024 by default
+         *
+         * @param maxSize
+         *            The maximum number of cached hostnames
+         * @return this builder
+         */
+        public Builder setMaxSize(final int maxSize) {
+            this.maxSize = maxSize;
+            return this;
+        }
+
+        /**
+         * Sets the executor for background refreshing, a bounded daemon
+         * thread pool is used by default
+         *
+         * @param executor
+         *            The executor
+         * @return this builder
+         */
+        public Builder setExecutor(final Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Instantialize a {@link CachingDnsResolver}
+         *
+         * @return an instance of {@link CachingDnsResolver}
+         */
+        public CachingDnsResolver build() {
+            return new CachingDnsResolver(this);
+        }
+    }
+
+}
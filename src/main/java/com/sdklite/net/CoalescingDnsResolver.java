@@ -0,0 +1,155 @@
+package com.sdklite.net;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * The default {@link AsyncDnsResolver} which runs the blocking
+ * {@link DnsResolver} on a bounded executor
+ *
+ * <p>
+ * The concurrent lookups of the same hostname share a single in-flight query,
+ * the query is forgotten once it's completed, so that the caching is left to
+ * the delegate, e.g. {@link CachingDnsResolver}. Each caller receives its own
+ * dependent future, so that cancelling or completing it doesn't affect the
+ * others.
+ * </p>
+ *
+ * @author johnsonlee
+ *
+ */
+public class CoalescingDnsResolver implements AsyncDnsResolver, DnsResolver {
+
+    private static final int DEFAULT_THREADS = 4;
+
+    private static final int DEFAULT_QUEUE_SIZE = 1024;
+
+    private final DnsResolver delegate;
+
+    private final Executor executor;
+
+    private final ConcurrentMap<String, CompletableFuture<List<InetAddress>>> inflight = new ConcurrentHashMap<String, CompletableFuture<List<InetAddress>>>();
+
+    /**
+     * Create an instance with a bounded daemon thread pool
+     *
+     * @param delegate
+     *            The blocking resolver
+     */
+    public CoalescingDnsResolver(final DnsResolver delegate) {
+        this(delegate, newDefaultExecutor());
+    }
+
+    /**
+     * Create an instance with the specified executor
+     *
+     * @param delegate
+     *            The blocking resolver
+     * @param executor
+     *            The executor to run the blocking resolver
+     */
+    public CoalescingDnsResolver(final DnsResolver delegate, final Executor executor) {
+        if (null == delegate) {
+            throw new IllegalArgumentException("Delegate resolver is required");
+        }
+
+        if (null == executor) {
+            throw new IllegalArgumentException("Executor is required");
+        }
+
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<List<InetAddress>> resolveAsync(final String hostname) {
+        return query(hostname).thenApply(Function.<List<InetAddress>>identity());
+    }
+
+    /**
+     * Returns the shared in-flight query of the specified hostname, which
+     * must not be exposed to the callers
+     */
+    private CompletableFuture<List<InetAddress>> query(final String hostname) {
+        final CompletableFuture<List<InetAddress>> pending = this.inflight.get(hostname);
+        if (null != pending) {
+            return pending;
+        }
+
+        final CompletableFuture<List<InetAddress>> future = new CompletableFuture<List<InetAddress>>();
+        final CompletableFuture<List<InetAddress>> existing = this.inflight.putIfAbsent(hostname, future);
+        if (null != existing) {
+            return existing;
+        }
+
+        try {
+            this.executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        final List<InetAddress> addresses = delegate.resolve(hostname);
+                        inflight.remove(hostname, future);
+                        future.complete(addresses);
+                    } catch (final Throwable e) {
+                        inflight.remove(hostname, future);
+                        future.completeExceptionally(e);
+                    }
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            this.inflight.remove(hostname, future);
+            future.completeExceptionally(e);
+        }
+
+        return future;
+    }
+
+    /**
+     * Resolve the specified hostname by waiting for the in-flight query
+     */
+    @Override
+    public List<InetAddress> resolve(final String hostname) throws UnknownHostException {
+        try {
+            return resolveAsync(hostname).get();
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof UnknownHostException) {
+                throw (UnknownHostException) cause;
+            }
+
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+
+            throw (UnknownHostException) new UnknownHostException(hostname).initCause(cause);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw (UnknownHostException) new UnknownHostException(hostname).initCause(e);
+        }
+    }
+
+    /**
+     * Returns the number of in-flight queries
+     */
+    public int getInflightCount() {
+        return this.inflight.size();
+    }
+
+    private static Executor newDefaultExecutor() {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(DEFAULT_THREADS, DEFAULT_THREADS, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(DEFAULT_QUEUE_SIZE), new DaemonThreadFactory("dns-resolver"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+}
@@ -0,0 +1,36 @@
+package com.sdklite.net;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@link ThreadFactory} which creates named daemon threads, so that the
+ * background work never prevents the JVM from exiting
+ *
+ * @author johnsonlee
+ *
+ */
+final class DaemonThreadFactory implements ThreadFactory {
+
+    private final AtomicInteger count = new AtomicInteger();
+
+    private final String prefix;
+
+    /**
+     * Create an instance with the specified name prefix
+     *
+     * @param prefix
+     *            The name prefix of threads
+     */
+    DaemonThreadFactory(final String prefix) {
+        this.prefix = prefix;
+    }
+
+    @Override
+    public Thread newThread(final Runnable r) {
+        final Thread thread = new Thread(r, this.prefix + "-" + this.count.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }
+
+}
@@ -0,0 +1,233 @@
+package com.sdklite.net;
+
+import java.io.IOException;
+import java.net.IDN;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The codec of DNS messages as defined in
+ * <a href="https://tools.ietf.org/html/rfc1035#section-4">RFC 1035</a>, only
+ * the address records are decoded
+ *
+ * @author johnsonlee
+ *
+ */
+final class DnsMessage {
+
+    static final int TYPE_A = 1;
+
+    static final int TYPE_AAAA = 28;
+
+    static final int CLASS_IN = 1;
+
+    static final int RCODE_NOERROR = 0;
+
+    static final int RCODE_SERVFAIL = 2;
+
+    static final int RCODE_NXDOMAIN = 3;
+
+    static final int RCODE_REFUSED = 5;
+
+    private static final int FLAG_QR = 0x8000;
+
+    private static final int FLAG_TC = 0x0200;
+
+    private static final int FLAG_RD = 0x0100;
+
+    private static final int HEADER_SIZE = 12;
+
+    private static final int MAX_NAME_LENGTH = 255;
+
+    private static final int MAX_LABEL_LENGTH = 63;
+
+    /**
+     * The message id
+     */
+    final int id;
+
+    /**
+     * Indicates whether the message is truncated
+     */
+    final boolean truncated;
+
+    /**
+     * The response code
+     */
+    final int rcode;
+
+    /**
+     * The addresses in answer section
+     */
+    final List<InetAddress> addresses;
+
+    /**
+     * The minimum TTL of address records in seconds, or -1 if absent
+     */
+    final long ttl;
+
+    private DnsMessage(final int id, final boolean truncated, final int rcode, final List<InetAddress> addresses, final long ttl) {
+        this.id = id;
+        this.truncated = truncated;
+        this.rcode = rcode;
+        this.addresses = addresses;
+        this.ttl = ttl;
+    }
+
+    /**
+     * Encode a recursive query of the specified name and type
+     *
+     * @param id
+     *            The message id
+     * @param hostname
+     *            The name to query
+     * @param type
+     *            The record type
+     * @return the encoded query
+     * @throws UnknownHostException
+     *             if the hostname is not a valid domain name
+     */
+    static byte[] encodeQuery(final int id, final String hostname, final int type) throws UnknownHostException {
+        final String name;
+        try {
+            name = IDN.toASCII(hostname);
+        } catch (final IllegalArgumentException e) {
+            throw (UnknownHostException) new UnknownHostException(hostname).initCause(e);
+        }
+
+        final int length = name.endsWith(".") ? name.length() - 1 : name.length();
+        if (length <= 0 || length + 2 > MAX_NAME_LENGTH) {
+            throw new UnknownHostException(hostname);
+        }
+
+        final ByteBuffer buf = ByteBuffer.allocate(HEADER_SIZE + length + 2 + 4);
+        buf.putShort((short) id);
+        buf.putShort((short) FLAG_RD);
+        buf.putShort((short) 1); // QDCOUNT
+        buf.putShort((short) 0); // ANCOUNT
+        buf.putShort((short) 0); // NSCOUNT
+        buf.putShort((short) 0); // ARCOUNT
+
+        for (int start = 0, i = 0; i <= length; i++) {
+            if (i == length || name.charAt(i) == '.') {
+                final int n = i - start;
+                if (n <= 0 || n > MAX_LABEL_LENGTH) {
+                    throw new UnknownHostException(hostname);
+                }
+
+                buf.put((byte) n);
+                for (int j = start; j < i; j++) {
+                    buf.put((byte) name.charAt(j));
+                }
+                start = i + 1;
+            }
+        }
+
+        buf.put((byte) 0);
+        buf.putShort((short) type);
+        buf.putShort((short) CLASS_IN);
+        return buf.array();
+    }
+
+    /**
+     * Returns the id of the specified message without decoding it
+     */
+    static int peekId(final ByteBuffer buf) {
+        return buf.remaining() >= 2 ? buf.getShort(buf.position()) & 0xffff : -1;
+    }
+
+    /**
+     * Decode the specified response of query, the response must echo the id
+     * and the question of query as required by
+     * <a href="https://tools.ietf.org/html/rfc5452#section-9.1">RFC 5452</a>
+     *
+     * @param buf
+     *            The response
+     * @param hostname
+     *            The queried hostname which is associated with the decoded
+     *            addresses
+     * @param query
+     *            The encoded query
+     * @return the decoded response
+     * @throws IOException
+     *             if the response is malformed or doesn't answer the query
+     */
+    static DnsMessage decode(final ByteBuffer buf, final String hostname, final byte[] query) throws IOException {
+        try {
+            final int id = buf.getShort() & 0xffff;
+            final int flags = buf.getShort() & 0xffff;
+            final int qdcount = buf.getShort() & 0xffff;
+            final int ancount = buf.getShort() & 0xffff;
+            buf.position(buf.position() + 4); // NSCOUNT & ARCOUNT
+
+            if (0 == (flags & FLAG_QR)) {
+                throw new IOException("DNS message is not a response");
+            }
+
+            if (id != (((query[0] & 0xff) << 8) | (query[1] & 0xff)) || 1 != qdcount) {
+                throw new IOException("Mismatched DNS response");
+            }
+
+            // the QNAME is compared case-insensitively, it's never compressed in the question of query
+            for (int i = HEADER_SIZE, qtype = query.length - 4; i < query.length; i++) {
+                final byte b = buf.get();
+                if (i < qtype ? toLowerCase(b) != toLowerCase(query[i]) : b != query[i]) {
+                    throw new IOException("Mismatched DNS question");
+                }
+            }
+
+            final boolean truncated = 0 != (flags & FLAG_TC);
+            final int rcode = flags & 0xf;
+
+            if (truncated || RCODE_NOERROR != rcode) {
+                return new DnsMessage(id, truncated, rcode, Collections.<InetAddress>emptyList(), -1);
+            }
+
+            final List<InetAddress> addresses = new ArrayList<InetAddress>(ancount);
+            long ttl = -1;
+
+            for (int i = 0; i < ancount; i++) {
+                skipName(buf);
+                final int type = buf.getShort() & 0xffff;
+                final int clazz = buf.getShort() & 0xffff;
+                final long recordTtl = buf.getInt() & 0xffffffffL;
+                final int rdlength = buf.getShort() & 0xffff;
+
+                if (CLASS_IN == clazz && ((TYPE_A == type && 4 == rdlength) || (TYPE_AAAA == type && 16 == rdlength))) {
+                    final byte[] address = new byte[rdlength];
+                    buf.get(address);
+                    addresses.add(InetAddress.getByAddress(hostname, address));
+                    ttl = ttl < 0 ? recordTtl : Math.min(ttl, recordTtl);
+                } else {
+                    buf.position(buf.position() + rdlength);
+                }
+            }
+
+            return new DnsMessage(id, false, rcode, addresses, ttl);
+        } catch (final BufferUnderflowException e) {
+            throw new IOException("Truncated DNS message");
+        } catch (final IllegalArgumentException e) {
+            throw new IOException("Truncated DNS message");
+        }
+    }
+
+    private static int toLowerCase(final byte b) {
+        return b >= 'A' && b <= 'Z' ? b + ('a' - 'A') : b;
+    }
+
+    private static void skipName(final ByteBuffer buf) {
+        for (int n; 0 != (n = buf.get() & 0xff);) {
+            if (0xc0 == (n & 0xc0)) {
+                buf.get(); // compression pointer ends the name
+                return;
+            }
+
+            buf.position(buf.position() + n);
+        }
+    }
+}
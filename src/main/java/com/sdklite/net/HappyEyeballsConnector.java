@@ -0,0 +1,311 @@
+package com.sdklite.net;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Establishes the connection by racing the resolved addresses as defined in
+ * <a href="https://tools.ietf.org/html/rfc8305">RFC 8305</a>
+ *
+ * <p>
+ * The addresses are interleaved by address family, the non-blocking connection
+ * attempts are started one by one with the attempt delay, or immediately after
+ * the previous attempt fails. The first established connection wins, and the
+ * others are closed.
+ * </p>
+ *
+ * @author johnsonlee
+ *
+ */
+public class HappyEyeballsConnector {
+
+    private static final class Attempt {
+
+        final InetAddress address;
+
+        final long start;
+
+        Attempt(final InetAddress address, final long start) {
+            this.address = address;
+            this.start = start;
+        }
+    }
+
+    private final DnsResolver resolver;
+
+    private final long attemptDelay;
+
+    private final long timeout;
+
+    private final LatencyWeightedAddressSelector recorder;
+
+    private HappyEyeballsConnector(final Builder builder) {
+        this.resolver = builder.resolver;
+        this.attemptDelay = builder.attemptDelay;
+        this.timeout = builder.timeout;
+        this.recorder = builder.recorder;
+    }
+
+    /**
+     * Resolve the specified hostname and connect to it
+     *
+     * @param hostname
+     *            The hostname to connect
+     * @param port
+     *            The port to connect
+     * @return the connected channel in non-blocking mode
+     * @throws IOException
+     *             if the hostname could not be resolved or none of the
+     *             addresses is connectable
+     */
+    public SocketChannel connect(final String hostname, final int port) throws IOException {
+        return connect(this.resolver.resolve(hostname), port);
+    }
+
+    /**
+     * Connect to the first reachable address
+     *
+     * @param addresses
+     *            The addresses in order of preference
+     * @param port
+     *            The port to connect
+     * @return the connected channel in non-blocking mode
+     * @throws IOException
+     *             if none of the addresses is connectable
+     */
+    public SocketChannel connect(final List<InetAddress> addresses, final int port) throws IOException {
+        if (addresses.isEmpty()) {
+            throw new IllegalArgumentException("Addresses are required");
+        }
+
+        final List<InetAddress> candidates = interleave(addresses);
+        final List<SocketChannel> channels = new ArrayList<SocketChannel>(candidates.size());
+        final Selector selector = Selector.open();
+        final long deadline = System.nanoTime() + this.timeout;
+
+        SocketChannel winner = null;
+        IOException failure = null;
+        long nextAttempt = System.nanoTime();
+        int next = 0;
+        int pending = 0;
+
+        try {
+            while (null == winner) {
+                final long now = System.nanoTime();
+
+                if (next < candidates.size() && (0 == pending || now - nextAttempt >= 0)) {
+                    final InetAddress address = candidates.get(next++);
+                    SocketChannel channel = null;
+
+                    try {
+                        channel = SocketChannel.open();
+                        channels.add(channel);
+                        channel.configureBlocking(false);
+
+                        if (channel.connect(new InetSocketAddress(address, port))) {
+                            record(address, now);
+                            winner = channel;
+                        } else {
+                            channel.register(selector, SelectionKey.OP_CONNECT, new Attempt(address, now));
+                            nextAttempt = now + this.attemptDelay;
+                            pending++;
+                        }
+                    } catch (final IOException e) {
+                        failure = e;
+                        fail(address, channel);
+                    }
+
+                    continue;
+                }
+
+                if (0 == pending) {
+                    throw null != failure ? failure : new ConnectException("No address is connectable");
+                }
+
+                final long remaining = deadline - now;
+                if (remaining <= 0) {
+                    throw new SocketTimeoutException("Connect timed out after " + TimeUnit.NANOSECONDS.toMillis(this.timeout) + "ms");
+                }
+
+                final long wait = next < candidates.size() ? Math.min(remaining, nextAttempt - now) : remaining;
+                selector.select(Math.max(1, TimeUnit.NANOSECONDS.toMillis(wait)));
+
+                for (final SelectionKey key : selector.selectedKeys()) {
+                    final SocketChannel channel = (SocketChannel) key.channel();
+                    final Attempt attempt = (Attempt) key.attachment();
+
+                    try {
+                        if (channel.finishConnect()) {
+                            record(attempt.address, attempt.start);
+                            winner = channel;
+                            break;
+                        }
+                    } catch (final IOException e) {
+                        failure = e;
+                        key.cancel();
+                        fail(attempt.address, channel);
+                        nextAttempt = System.nanoTime(); // start the next attempt immediately
+                        pending--;
+                    }
+                }
+
+                selector.selectedKeys().clear();
+            }
+        } finally {
+            selector.close();
+
+            for (final SocketChannel channel : channels) {
+                if (channel != winner) {
+                    closeQuietly(channel);
+                }
+            }
+        }
+
+        return winner;
+    }
+
+    /**
+     * Interleave the addresses by address family, starting with the family of
+     * the most preferred address
+     */
+    static List<InetAddress> interleave(final List<InetAddress> addresses) {
+        final boolean ipv6 = addresses.get(0) instanceof Inet6Address;
+        final List<InetAddress> primary = new ArrayList<InetAddress>(addresses.size());
+        final List<InetAddress> secondary = new ArrayList<InetAddress>(addresses.size());
+
+        for (final InetAddress address : addresses) {
+            ((address instanceof Inet6Address) == ipv6 ? primary : secondary).add(address);
+        }
+
+        final List<InetAddress> interleaved = new ArrayList<InetAddress>(addresses.size());
+        for (int i = 0; i < primary.size() || i < secondary.size(); i++) {
+            if (i < primary.size()) {
+                interleaved.add(primary.get(i));
+            }
+
+            if (i < secondary.size()) {
+                interleaved.add(secondary.get(i));
+            }
+        }
+
+        return interleaved;
+    }
+
+    private void record(final InetAddress address, final long start) {
+        if (null != this.recorder) {
+            this.recorder.recordConnectTime(address, System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void fail(final InetAddress address, final SocketChannel channel) {
+        if (null != this.recorder) {
+            this.recorder.recordFailure(address);
+        }
+
+        closeQuietly(channel);
+    }
+
+    private static void closeQuietly(final SocketChannel channel) {
+        if (null != channel) {
+            try {
+                channel.close();
+            } catch (final IOException e) {
+                // ignore
+            }
+        }
+    }
+
+    /**
+     * Represents the builder of {@link HappyEyeballsConnector}
+     *
+     * @author johnsonlee
+     *
+     */
+    public static final class Builder {
+
+        private DnsResolver resolver = DnsResolver.SYSTEM;
+
+        private long attemptDelay = TimeUnit.MILLISECONDS.toNanos(250);
+
+        private long timeout = TimeUnit.SECONDS.toNanos(10);
+
+        private LatencyWeightedAddressSelector recorder;
+
+        /**
+         * Sets the resolver, {@link DnsResolver#SYSTEM} by default
+         *
+         * @param resolver
+         *            The DNS resolver
+         * @return this builder
+         */
+        public Builder setDnsResolver(final DnsResolver resolver) {
+            if (null == resolver) {
+                throw new IllegalArgumentException("DNS resolver is required");
+            }
+
+            this.resolver = resolver;
+            return this;
+        }
+
+        /**
+         * Sets the delay between the starts of connection attempts, 250
+         * milliseconds by default as recommended by RFC 8305
+         *
+         * @param delay
+         *            The attempt delay
+         * @param unit
+         *            The time unit of delay
+         * @return this builder
+         */
+        public Builder setAttemptDelay(final long delay, final TimeUnit unit) {
+            this.attemptDelay = unit.toNanos(delay);
+            return this;
+        }
+
+        /**
+         * Sets the overall connect timeout, 10 seconds by default
+         *
+         * @param timeout
+         *            The connect timeout
+         * @param unit
+         *            The time unit of timeout
+         * @return this builder
+         */
+        public Builder setTimeout(final long timeout, final TimeUnit unit) {
+            this.timeout = unit.toNanos(timeout);
+            return this;
+        }
+
+        /**
+         * Sets the selector to be fed with the observed connect times
+         *
+         * @param recorder
+         *            The latency-weighted address selector
+         * @return this builder
+         */
+        public Builder setLatencyRecorder(final LatencyWeightedAddressSelector recorder) {
+            this.recorder = recorder;
+            return this;
+        }
+
+        /**
+         * Instantialize a {@link HappyEyeballsConnector}
+         *
+         * @return an instance of {@link HappyEyeballsConnector}
+         */
+        public HappyEyeballsConnector build() {
+            return new HappyEyeballsConnector(this);
+        }
+    }
+
+}
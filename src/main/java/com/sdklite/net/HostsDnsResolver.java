@@ -0,0 +1,308 @@
+package com.sdklite.net;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.Charset;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@link DnsResolver} which answers from the static mappings or the file in
+ * {@code /etc/hosts} format, the unknown hostnames are resolved by the delegate
+ *
+ * <p>
+ * The mappings are compiled into an immutable open addressing table keyed by
+ * the case-folded hash of hostname, so that each lookup is a single probe
+ * which returns the prebuilt address list without allocation. The file is
+ * watched and reloaded on change, the table is swapped atomically so that the
+ * readers never block.
+ * </p>
+ *
+ * @author johnsonlee
+ *
+ */
+public class HostsDnsResolver implements DnsResolver, Closeable {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * The period without any change of file before it's reloaded
+     */
+    private static final long QUIET_PERIOD_MILLIS = 200;
+
+    /**
+     * The maximum attempts to read the file while it's being written
+     */
+    private static final int MAX_READ_ATTEMPTS = 5;
+
+    private final DnsResolver delegate;
+
+    private final File file;
+
+    private final WatchService watcher;
+
+    private volatile Table table;
+
+    /**
+     * Create an instance with the static mappings
+     *
+     * @param hosts
+     *            The addresses of each hostname
+     * @param delegate
+     *            The resolver for unknown hostnames, or null to fail fast
+     */
+    public HostsDnsResolver(final Map<String, List<InetAddress>> hosts, final DnsResolver delegate) {
+        this.delegate = delegate;
+        this.file = null;
+        this.watcher = null;
+        this.table = new Table(hosts);
+    }
+
+    /**
+     * Create an instance with the hosts file which is reloaded on change
+     *
+     * @param file
+     *            The file in {@code /etc/hosts} format
+     * @param delegate
+     *            The resolver for unknown hostnames, or null to fail fast
+     * @throws IOException
+     *             if the file could not be read or watched
+     */
+    public HostsDnsResolver(final File file, final DnsResolver delegate) throws IOException {
+        this.delegate = delegate;
+        this.file = file.getAbsoluteFile();
+        this.table = new Table(parse(this.file));
+
+        final Path dir = this.file.getParentFile().toPath();
+        this.watcher = dir.getFileSystem().newWatchService();
+        dir.register(this.watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+        final Thread thread = new DaemonThreadFactory("hosts-watcher").newThread(new Runnable() {
+            @Override
+            public void run() {
+                watch();
+            }
+        });
+        thread.start();
+    }
+
+    @Override
+    public List<InetAddress> resolve(final String hostname) throws UnknownHostException {
+        final List<InetAddress> addresses = null != hostname ? this.table.get(hostname) : null;
+        if (null != addresses) {
+            return addresses;
+        }
+
+        if (null == this.delegate) {
+            throw new UnknownHostException(hostname);
+        }
+
+        return this.delegate.resolve(hostname);
+    }
+
+    /**
+     * Reload the hosts file, the file is read again if its size or
+     * modification time changes while reading, so that a file being
+     * rewritten is never published. The current mappings are kept if the file
+     * could not be read
+     *
+     * @throws IOException
+     *             if the file could not be read or kept changing
+     */
+    public void reload() throws IOException {
+        if (null == this.file) {
+            return;
+        }
+
+        for (int i = 1;; i++) {
+            final long length = this.file.length();
+            final long lastModified = this.file.lastModified();
+            final Map<String, List<InetAddress>> hosts = parse(this.file);
+
+            if (length == this.file.length() && lastModified == this.file.lastModified()) {
+                this.table = new Table(hosts);
+                return;
+            }
+
+            if (i >= MAX_READ_ATTEMPTS) {
+                throw new IOException("File " + this.file + " kept changing while reading");
+            }
+        }
+    }
+
+    /**
+     * Stop watching the hosts file
+     */
+    @Override
+    public void close() throws IOException {
+        if (null != this.watcher) {
+            this.watcher.close();
+        }
+    }
+
+    private void watch() {
+        final Path name = this.file.toPath().getFileName();
+
+        try {
+            for (;;) {
+                WatchKey key = this.watcher.take();
+                boolean changed = false;
+
+                // a write usually raises a burst of events, reload once the file is quiet
+                do {
+                    for (final WatchEvent<?> event : key.pollEvents()) {
+                        changed |= StandardWatchEventKinds.OVERFLOW == event.kind() || name.equals(event.context());
+                    }
+
+                    if (!key.reset()) {
+                        return;
+                    }
+                } while (null != (key = this.watcher.poll(QUIET_PERIOD_MILLIS, TimeUnit.MILLISECONDS)));
+
+                if (changed) {
+                    try {
+                        reload();
+                    } catch (final IOException e) {
+                        // keep the current mappings until the next change
+                    }
+                }
+            }
+        } catch (final ClosedWatchServiceException e) {
+            // closed
+        } catch (final InterruptedException e) {
+            // stopped
+        }
+    }
+
+    /**
+     * Parse the file in {@code /etc/hosts} format, the lines with malformed
+     * address are ignored
+     */
+    static Map<String, List<InetAddress>> parse(final File file) throws IOException {
+        final Map<String, List<InetAddress>> hosts = new LinkedHashMap<String, List<InetAddress>>();
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF_8));
+
+        try {
+            for (String line; null != (line = reader.readLine());) {
+                final int comment = line.indexOf('#');
+                final String[] fields = (comment < 0 ? line : line.substring(0, comment)).trim().split("\\s+");
+                if (fields.length < 2 || !isLiteral(fields[0])) {
+                    continue;
+                }
+
+                final byte[] address;
+                try {
+                    address = InetAddress.getByName(fields[0]).getAddress();
+                } catch (final UnknownHostException e) {
+                    continue;
+                }
+
+                for (int i = 1; i < fields.length; i++) {
+                    final String hostname = fields[i].toLowerCase(Locale.US);
+                    List<InetAddress> addresses = hosts.get(hostname);
+                    if (null == addresses) {
+                        hosts.put(hostname, addresses = new ArrayList<InetAddress>(1));
+                    }
+
+                    final InetAddress host = InetAddress.getByAddress(fields[i], address);
+                    if (!addresses.contains(host)) {
+                        addresses.add(host);
+                    }
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        return hosts;
+    }
+
+    private static boolean isLiteral(final String s) {
+        if (s.indexOf(':') >= 0) {
+            return true;
+        }
+
+        for (int i = 0, n = s.length(); i < n; i++) {
+            final char c = s.charAt(i);
+            if (c != '.' && (c < '0' || c > '9')) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static int hash(final String s) {
+        int h = 0;
+        for (int i = 0, n = s.length(); i < n; i++) {
+            final char c = s.charAt(i);
+            h = 31 * h + (c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c);
+        }
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * The immutable open addressing table
+     */
+    private static final class Table {
+
+        private final String[] keys;
+
+        private final List<InetAddress>[] values;
+
+        private final int mask;
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        Table(final Map<String, List<InetAddress>> map) {
+            int capacity = 16;
+            while (capacity < map.size() * 2) {
+                capacity <<= 1;
+            }
+
+            this.keys = new String[capacity];
+            this.values = new List[capacity];
+            this.mask = capacity - 1;
+
+            for (final Map.Entry<String, List<InetAddress>> entry : map.entrySet()) {
+                final String key = entry.getKey();
+                int i = hash(key) & this.mask;
+                while (null != this.keys[i] && !this.keys[i].equalsIgnoreCase(key)) {
+                    i = (i + 1) & this.mask;
+                }
+                this.keys[i] = key;
+                this.values[i] = Collections.unmodifiableList(new ArrayList<InetAddress>(entry.getValue()));
+            }
+        }
+
+        List<InetAddress> get(final String hostname) {
+            for (int i = hash(hostname) & this.mask;; i = (i + 1) & this.mask) {
+                final String key = this.keys[i];
+                if (null == key) {
+                    return null;
+                }
+
+                if (key.equalsIgnoreCase(hostname)) {
+                    return this.values[i];
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,171 @@
+package com.sdklite.net;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@link AddressSelector} which prefers the addresses with lower connect
+ * time
+ *
+ * <p>
+ * The connect time of each address is smoothed by exponentially weighted
+ * moving average, the first address is picked randomly with the probability in
+ * inverse proportion to its latency, and the others follow in ascending order
+ * of latency. The addresses without observation are assumed as fast as the
+ * fastest one, so that they get explored.
+ * </p>
+ *
+ * @author johnsonlee
+ *
+ */
+public class LatencyWeightedAddressSelector implements AddressSelector {
+
+    private static final int CACHE_SIZE = 4096;
+
+    /**
+     * The weight of the latest observation
+     */
+    private static final double ALPHA = 0.3;
+
+    /**
+     * The connect time assumed for failed attempts
+     */
+    private static final long FAILURE_PENALTY = TimeUnit.SECONDS.toNanos(3);
+
+    /**
+     * The smoothed connect time of each address in nanoseconds, it's cleared
+     * once it's full
+     */
+    private final ConcurrentMap<InetAddress, AtomicLong> latencies = new ConcurrentHashMap<InetAddress, AtomicLong>();
+
+    private final Random random = new Random();
+
+    /**
+     * Record the connect time of the specified address
+     *
+     * @param address
+     *            The connected address
+     * @param time
+     *            The connect time
+     * @param unit
+     *            The time unit of connect time
+     */
+    public void recordConnectTime(final InetAddress address, final long time, final TimeUnit unit) {
+        update(address, Math.max(1, unit.toNanos(time)));
+    }
+
+    /**
+     * Record the failed attempt to connect the specified address
+     *
+     * @param address
+     *            The unreachable address
+     */
+    public void recordFailure(final InetAddress address) {
+        update(address, FAILURE_PENALTY);
+    }
+
+    /**
+     * Returns the smoothed connect time of the specified address
+     *
+     * @param address
+     *            The address
+     * @param unit
+     *            The time unit of result
+     * @return the smoothed connect time, or -1 if not observed
+     */
+    public long getLatency(final InetAddress address, final TimeUnit unit) {
+        final AtomicLong latency = this.latencies.get(address);
+        return null != latency ? unit.convert(latency.get(), TimeUnit.NANOSECONDS) : -1;
+    }
+
+    @Override
+    public List<InetAddress> select(final String hostname, final List<InetAddress> addresses) {
+        final int n = addresses.size();
+        if (n < 2) {
+            return addresses;
+        }
+
+        final long[] latencies = new long[n];
+        long fastest = Long.MAX_VALUE;
+
+        for (int i = 0; i < n; i++) {
+            final AtomicLong latency = this.latencies.get(addresses.get(i));
+            latencies[i] = null != latency ? latency.get() : -1;
+            if (latencies[i] > 0) {
+                fastest = Math.min(fastest, latencies[i]);
+            }
+        }
+
+        double total = 0;
+        final double[] weights = new double[n];
+
+        for (int i = 0; i < n; i++) {
+            if (latencies[i] < 0) {
+                latencies[i] = Long.MAX_VALUE == fastest ? 1 : fastest;
+            }
+            total += weights[i] = 1.0 / latencies[i];
+        }
+
+        int picked = n - 1;
+        double r = this.random.nextDouble() * total;
+        for (int i = 0; i < n - 1; i++) {
+            if ((r -= weights[i]) < 0) {
+                picked = i;
+                break;
+            }
+        }
+
+        final List<Integer> rest = new ArrayList<Integer>(n - 1);
+        for (int i = 0; i < n; i++) {
+            if (i != picked) {
+                rest.add(i);
+            }
+        }
+
+        Collections.sort(rest, new Comparator<Integer>() {
+            @Override
+            public int compare(final Integer a, final Integer b) {
+                final long la = latencies[a], lb = latencies[b];
+                return la < lb ? -1 : (la == lb ? 0 : 1);
+            }
+        });
+
+        final List<InetAddress> selected = new ArrayList<InetAddress>(n);
+        selected.add(addresses.get(picked));
+        for (final Integer i : rest) {
+            selected.add(addresses.get(i));
+        }
+
+        return Collections.unmodifiableList(selected);
+    }
+
+    private void update(final InetAddress address, final long sample) {
+        AtomicLong latency = this.latencies.get(address);
+        if (null == latency) {
+            if (this.latencies.size() >= CACHE_SIZE) {
+                this.latencies.clear();
+            }
+
+            latency = this.latencies.putIfAbsent(address, new AtomicLong(sample));
+            if (null == latency) {
+                return;
+            }
+        }
+
+        for (long current;;) {
+            current = latency.get();
+            if (latency.compareAndSet(current, (long) (ALPHA * sample + (1 - ALPHA) * current))) {
+                return;
+            }
+        }
+    }
+
+}
@@ -1,17 +1,22 @@
 package com.sdklite.net;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.Serializable;
-import java.net.URLConnection;
 import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Locale;
 import java.util.Map;
 import java.util.TreeMap;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Represents the MIME type as defined in <a href="https://www.ietf.org/rfc/rfc2046.txt">Multipurpose Internet Mail Extensions (MIME) Part Two : Media Types</a>
@@ -23,16 +28,109 @@ import java.util.regex.Pattern;
 @SuppressWarnings("serial")
 public class MimeType implements Serializable {
 
-    private static final String TOKEN = "([a-zA-Z0-9-!#$%&'*+.^_`{|}~]+)";
+    /**
+     * The character class table of token as defined in RFC 2045
+     */
+    private static final boolean[] TOKEN_CHARS = new boolean[128];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            TOKEN_CHARS[c] = true;
+        }
+        for (char c = 'A'; c <= 'Z'; c++) {
+            TOKEN_CHARS[c] = true;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            TOKEN_CHARS[c] = true;
+        }
+        for (final char c : "-!#$%&'*+.^_`{|}~".toCharArray()) {
+            TOKEN_CHARS[c] = true;
+        }
+    }
+
+    private static final int CACHE_SIZE = 512;
+
+    private static final String[] WELL_KNOWN_TYPES = {
+        "application/javascript",
+        "application/json",
+        "application/json; charset=UTF-8",
+        "application/octet-stream",
+        "application/pdf",
+        "application/x-www-form-urlencoded",
+        "application/xml",
+        "application/zip",
+        "image/gif",
+        "image/jpeg",
+        "image/png",
+        "multipart/form-data",
+        "text/css",
+        "text/html",
+        "text/html; charset=UTF-8",
+        "text/javascript",
+        "text/plain",
+        "text/plain; charset=UTF-8",
+        "text/xml",
+    };
+
+    /**
+     * The pre-parsed well known types which are never evicted
+     */
+    private static final Map<String, MimeType> WELL_KNOWN;
+
+    /**
+     * The parsed types, it's cleared once it's full
+     */
+    private static final ConcurrentMap<String, MimeType> CACHE = new ConcurrentHashMap<String, MimeType>();
+
+    private static final AtomicLong CACHE_HITS = new AtomicLong();
+
+    private static final AtomicLong CACHE_MISSES = new AtomicLong();
+
+    static {
+        final Map<String, MimeType> types = new HashMap<String, MimeType>();
+        for (final String type : WELL_KNOWN_TYPES) {
+            types.put(type, parse0(type));
+        }
+        WELL_KNOWN = Collections.unmodifiableMap(types);
+    }
+
+    private static final Charset US_ASCII = Charset.forName("US-ASCII");
 
-    private static final String QUOTED = "(\"[^\"]*\")";
+    private static final Object NO_CHARSET = new Object();
+
+    /**
+     * The common charsets with their aliases
+     */
+    private static final Map<String, Charset> CHARSETS;
+
+    static {
+        final Map<String, Charset> charsets = new TreeMap<String, Charset>(String.CASE_INSENSITIVE_ORDER);
+        for (final String name : new String[] { "US-ASCII", "ISO-8859-1", "UTF-8", "UTF-16", "UTF-16BE", "UTF-16LE" }) {
+            final Charset charset = Charset.forName(name);
+            charsets.put(charset.name(), charset);
+            for (final String alias : charset.aliases()) {
+                charsets.put(alias, charset);
+            }
+        }
+        CHARSETS = Collections.unmodifiableMap(charsets);
+    }
 
-    private static final Pattern TYPE_SUBTYPE = Pattern.compile(TOKEN + "/" + TOKEN);
+    /**
+     * Returns the charset of the specified name from the common charsets
+     * before looking up with {@link Charset#forName(String)}
+     */
+    private static Charset forName(final String charsetName) {
+        final Charset charset = CHARSETS.get(charsetName);
+        if (null != charset) {
+            return charset;
+        }
 
-    private static final Pattern PARAMETER = Pattern.compile(";\\s*(?:" + TOKEN + "=(?:" + TOKEN + "|" + QUOTED + "))?");
+        return Charset.forName(charsetName);
+    }
 
     /**
-     * Parse string as {@link MimeType}
+     * Parse string as {@link MimeType}, the result is shared by the subsequent
+     * parsing of the same string
      * 
      * @param string
      *            The MIME type string
@@ -41,67 +139,265 @@ public class MimeType implements Serializable {
      *             if the the specified MIME Type string is malformed
      */
     public static MimeType parse(final String string) throws MalformedMimeTypeException {
-        final Matcher typeMatcher = TYPE_SUBTYPE.matcher(string);
-        if (!typeMatcher.lookingAt()) {
+        MimeType mimeType = WELL_KNOWN.get(string);
+        if (null == mimeType) {
+            mimeType = CACHE.get(string);
+        }
+
+        if (null != mimeType) {
+            CACHE_HITS.incrementAndGet();
+            return mimeType;
+        }
+
+        CACHE_MISSES.incrementAndGet();
+        mimeType = parse0(string);
+
+        if (null != mimeType) {
+            if (CACHE.size() >= CACHE_SIZE) {
+                CACHE.clear();
+            }
+
+            final MimeType cached = CACHE.putIfAbsent(string, mimeType);
+            if (null != cached) {
+                return cached;
+            }
+        }
+
+        return mimeType;
+    }
+
+    /**
+     * Returns the number of {@link #parse(String)} calls served from cache
+     */
+    public static long getCacheHitCount() {
+        return CACHE_HITS.get();
+    }
+
+    /**
+     * Returns the number of {@link #parse(String)} calls which are not served
+     * from cache
+     */
+    public static long getCacheMissCount() {
+        return CACHE_MISSES.get();
+    }
+
+    private static MimeType parse0(final String string) throws MalformedMimeTypeException {
+        final int n = string.length();
+        final int slash = skipToken(string, 0);
+        if (slash == 0 || slash == n || string.charAt(slash) != '/') {
+            return null;
+        }
+
+        final int end = skipToken(string, slash + 1);
+        if (end == slash + 1) {
             return null;
         }
 
-        final String type = typeMatcher.group(1).toLowerCase(Locale.US);
-        final String subtype = typeMatcher.group(2).toLowerCase(Locale.US);
-        final Matcher parametersMatcher = PARAMETER.matcher(string);
+        final String type = string.substring(0, slash).toLowerCase(Locale.US);
+        final String subtype = string.substring(slash + 1, end).toLowerCase(Locale.US);
         final Map<String, String> parameters = new LinkedHashMap<String, String>();
 
-        for (int i = typeMatcher.end(), n = string.length(); i < n; i = parametersMatcher.end()) {
-            parametersMatcher.region(i, string.length());
-            if (!parametersMatcher.lookingAt()) {
+        for (int i = end; i < n;) {
+            if (string.charAt(i) != ';') {
                 throw new MalformedMimeTypeException(string);
             }
 
-            final String name = parametersMatcher.group(1);
-            if (name == null) {
+            for (i++; i < n && isWhitespace(string.charAt(i)); i++) {
+            }
+
+            final int eq = skipToken(string, i);
+            if (eq == i || eq == n || string.charAt(eq) != '=') {
                 continue;
             }
 
-            final String value = parametersMatcher.group(2) != null
-                    ? parametersMatcher.group(2) // Value is a token.
-                    : parametersMatcher.group(3); // Value is a quoted string.
-            parameters.put(name, value);
+            int valueEnd = skipToken(string, eq + 1);
+            if (valueEnd == eq + 1) {
+                // value is a quoted string
+                final int quote = valueEnd < n && string.charAt(valueEnd) == '"' ? string.indexOf('"', valueEnd + 1) : -1;
+                if (quote < 0) {
+                    continue;
+                }
+                valueEnd = quote + 1;
+            }
+
+            parameters.put(string.substring(i, eq), string.substring(eq + 1, valueEnd));
+            i = valueEnd;
         }
 
         return new MimeType(type, subtype, parameters);
     }
 
+    /**
+     * Returns the index of the first non-token character from {@code start}
+     */
+    private static int skipToken(final String s, final int start) {
+        int i = start;
+        for (final int n = s.length(); i < n; i++) {
+            final char c = s.charAt(i);
+            if (c >= 0x80 || !TOKEN_CHARS[c]) {
+                break;
+            }
+        }
+        return i;
+    }
+
+    private static boolean isToken(final String s) {
+        return s.length() > 0 && skipToken(s, 0) == s.length();
+    }
+
+    private static boolean isQuoted(final String s) {
+        return s.length() > 1 && s.charAt(0) == '"' && s.indexOf('"', 1) == s.length() - 1;
+    }
+
+    private static boolean isWhitespace(final char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000b' || c == '\f' || c == '\r';
+    }
+
+    /**
+     * Guess the MIME type from the extension of the specified file
+     * 
+     * @param file
+     *            The file
+     * @return the MIME type or null if the extension is unknown
+     */
     public static final MimeType guess(final File file) {
         return guess(file, null);
     }
 
+    /**
+     * Guess the MIME type from the extension of the specified file
+     * 
+     * @param file
+     *            The file
+     * @param defaultType
+     *            The MIME type to return if the extension is unknown
+     * @return the MIME type or {@code defaultType} if the extension is unknown
+     */
     public static final MimeType guess(final File file, final MimeType defaultType) {
         return guess(file.getName(), defaultType);
     }
 
+    /**
+     * Guess the MIME type from the extension of the specified file name or URL
+     * 
+     * @param url
+     *            The file name or URL
+     * @return the MIME type or null if the extension is unknown
+     */
     public static final MimeType guess(final String url) {
         return guess(url, null);
     }
 
+    /**
+     * Guess the MIME type from the extension of the specified file name or
+     * URL, the query and fragment are ignored if it's an absolute URL
+     * 
+     * @param url
+     *            The file name or URL
+     * @param defaultType
+     *            The MIME type to return if the extension is unknown
+     * @return the MIME type or {@code defaultType} if the extension is unknown
+     */
     public static final MimeType guess(final String url, final MimeType defaultType) {
         if (null == url) {
             return defaultType;
         }
 
-        final String contentType = URLConnection.guessContentTypeFromName(url);
-        if (null != contentType) {
-            return MimeType.parse(contentType);
+        int end = url.length();
+        if (url.indexOf("://") > 0) {
+            for (int i = 0; i < end; i++) {
+                final char c = url.charAt(i);
+                if (c == '?' || c == '#') {
+                    end = i;
+                }
+            }
+        }
+
+        for (int i = end - 1; i >= 0; i--) {
+            final char c = url.charAt(i);
+            if (c == '.') {
+                final MimeType mimeType = MimeTypes.lookup(url, i + 1, end);
+                return null != mimeType ? mimeType : defaultType;
+            }
+
+            if (c == '/' || c == '\\') {
+                break;
+            }
         }
 
         return defaultType;
     }
 
+    /**
+     * Detect the MIME type from the magic bytes at the beginning of the
+     * specified stream, at most the first 512 bytes are inspected and the
+     * stream is reset to the original position after detection
+     * 
+     * @param in
+     *            The input stream which supports {@link InputStream#mark(int)}
+     * @param defaultType
+     *            The MIME type to return if the content is unrecognized
+     * @return the MIME type or {@code defaultType} if the content is
+     *         unrecognized
+     * @throws IOException
+     *             if read failed
+     * @throws IllegalArgumentException
+     *             if mark is not supported by the stream
+     */
+    public static final MimeType sniff(final InputStream in, final MimeType defaultType) throws IOException {
+        final MimeType mimeType = MimeTypeSniffer.sniff(in);
+        return null != mimeType ? mimeType : defaultType;
+    }
+
+    /**
+     * Detect the MIME type from the magic bytes at the beginning of the
+     * specified data, at most the first 512 bytes are inspected
+     * 
+     * @param data
+     *            The data
+     * @param offset
+     *            The offset of data
+     * @param length
+     *            The length of data
+     * @param defaultType
+     *            The MIME type to return if the content is unrecognized
+     * @return the MIME type or {@code defaultType} if the content is
+     *         unrecognized
+     */
+    public static final MimeType sniff(final byte[] data, final int offset, final int length, final MimeType defaultType) {
+        final MimeType mimeType = MimeTypeSniffer.sniff(data, offset, length);
+        return null != mimeType ? mimeType : defaultType;
+    }
+
+    /**
+     * Register the MIME type of the specified file extension, the built-in
+     * one will be overridden
+     * 
+     * @param extension
+     *            The file extension without leading dot, e.g. {@code json}
+     * @param mimeType
+     *            The MIME type
+     */
+    public static void register(final String extension, final MimeType mimeType) {
+        if (null == extension || null == mimeType) {
+            throw new IllegalArgumentException("Extension and MIME type are required");
+        }
+
+        MimeTypes.register(extension, mimeType);
+    }
+
     private final String type;
 
     private final String subtype;
 
     private final Map<String, String> parameters;
 
+    /**
+     * The resolved charset parameter, it's either an instance of
+     * {@link Charset}, {@link #NO_CHARSET} or the resolution failure
+     */
+    private transient volatile Object charset;
+
     /**
      * Clone an instance from {@code mimeType}
      * 
@@ -151,11 +447,11 @@ public class MimeType implements Serializable {
             throw new IllegalArgumentException("Type is required");
         }
 
-        if (!type.matches(TOKEN)) {
+        if (!isToken(type)) {
             throw new MalformedMimeTypeException("Malformed type: " + type);
         }
 
-        if (null != subtype && !subtype.matches(TOKEN)) {
+        if (null != subtype && !isToken(subtype)) {
             throw new MalformedMimeTypeException("Malformed subtype: " + subtype);
         }
 
@@ -163,11 +459,11 @@ public class MimeType implements Serializable {
             final String name = parameter.getKey();
             final String value = parameter.getValue();
 
-            if (!name.matches(TOKEN)) {
+            if (!isToken(name)) {
                 throw new MalformedMimeTypeException("Malformed parameter name: " + name);
             }
 
-            if (!value.matches("(?:" + TOKEN + "|" + QUOTED + ")")) {
+            if (!isToken(value) && !isQuoted(value)) {
                 throw new MalformedMimeTypeException("Malformed parameter value: " + value);
             }
         }
@@ -259,7 +555,7 @@ public class MimeType implements Serializable {
      * @return the charset
      */
     public Charset getCharset() {
-        return Charset.forName(getParameter("charset", "US-ASCII"));
+        return getCharset(US_ASCII);
     }
 
     /**
@@ -272,12 +568,43 @@ public class MimeType implements Serializable {
      * @return the charset
      */
     public Charset getCharset(final Charset defaultCharset) {
+        final Object charset = resolveCharset();
+        if (charset instanceof Charset) {
+            return (Charset) charset;
+        }
+
+        if (NO_CHARSET == charset) {
+            return defaultCharset;
+        }
+
         final String charsetName = getParameter("charset");
-        if (null != charsetName) {
-            return Charset.forName(charsetName);
+        if (charset instanceof UnsupportedCharsetException) {
+            throw new UnsupportedCharsetException(charsetName);
+        }
+
+        throw new IllegalCharsetNameException(charsetName);
+    }
+
+    private Object resolveCharset() {
+        Object charset = this.charset;
+
+        if (null == charset) {
+            final String charsetName = getParameter("charset");
+
+            if (null == charsetName) {
+                charset = NO_CHARSET;
+            } else {
+                try {
+                    charset = forName(charsetName);
+                } catch (final IllegalArgumentException e) {
+                    charset = e;
+                }
+            }
+
+            this.charset = charset;
         }
 
-        return defaultCharset;
+        return charset;
     }
 
     /**
@@ -298,6 +625,48 @@ public class MimeType implements Serializable {
         return null != this.subtype && this.subtype.startsWith("*");
     }
 
+    /**
+     * Determine if this MIME type includes the specified one, e.g.
+     * {@code text/*} includes {@code text/plain}, {@code application/*+json}
+     * includes {@code application/vnd.api+json} and {@code application/json},
+     * the parameters are not taken into account
+     * 
+     * @param other
+     *            The MIME type to test
+     * @return true if this MIME type is a range which includes {@code other}
+     */
+    public boolean includes(final MimeType other) {
+        if (null == other) {
+            return false;
+        }
+
+        if (isWildcardType()) {
+            return true;
+        }
+
+        if (!this.type.equalsIgnoreCase(other.type)) {
+            return false;
+        }
+
+        if (null == this.subtype || "*".equals(this.subtype) || this.subtype.equalsIgnoreCase(other.subtype)) {
+            return true;
+        }
+
+        if (null == other.subtype || !this.subtype.startsWith("*+")) {
+            return false;
+        }
+
+        // the suffix without '+'
+        final int suffix = this.subtype.length() - 2;
+        final int offset = other.subtype.length() - suffix;
+
+        if (offset == 0) {
+            return other.subtype.regionMatches(true, 0, this.subtype, 2, suffix);
+        }
+
+        return offset > 0 && other.subtype.charAt(offset - 1) == '+' && other.subtype.regionMatches(true, offset, this.subtype, 2, suffix);
+    }
+
     @Override
     public String toString() {
         final StringBuilder builder = new StringBuilder();
@@ -0,0 +1,243 @@
+package com.sdklite.net;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Detects the MIME type from the leading bytes of content
+ *
+ * <p>
+ * The magic numbers are compiled into byte tries, the binary signatures are
+ * matched from the first byte, the text signatures are matched
+ * case-insensitively after the byte order mark and the leading whitespaces.
+ * The exact bytes are preferred over the wildcards, and the longer signature
+ * is preferred over its prefix.
+ * </p>
+ *
+ * @author johnsonlee
+ *
+ */
+final class MimeTypeSniffer {
+
+    /**
+     * The maximum number of bytes to inspect
+     */
+    static final int PREFIX_LENGTH = 512;
+
+    /**
+     * The binary signatures in hex, {@code ??} matches any byte
+     */
+    private static final String[] BINARY = {
+        "89 50 4E 47 0D 0A 1A 0A", "image/png",
+        "FF D8 FF", "image/jpeg",
+        "47 49 46 38 37 61", "image/gif",
+        "47 49 46 38 39 61", "image/gif",
+        "42 4D", "image/bmp",
+        "49 49 2A 00", "image/tiff",
+        "4D 4D 00 2A", "image/tiff",
+        "00 00 01 00", "image/x-icon",
+        "52 49 46 46 ?? ?? ?? ?? 57 45 42 50", "image/webp",
+        "52 49 46 46 ?? ?? ?? ?? 57 41 56 45", "audio/wav",
+        "52 49 46 46 ?? ?? ?? ?? 41 56 49 20", "video/x-msvideo",
+        "?? ?? ?? ?? 66 74 79 70", "video/mp4",
+        "?? ?? ?? ?? 66 74 79 70 71 74 20 20", "video/quicktime",
+        "?? ?? ?? ?? 66 74 79 70 4D 34 41 20", "audio/mp4",
+        "?? ?? ?? ?? 66 74 79 70 68 65 69 63", "image/heic",
+        "?? ?? ?? ?? 66 74 79 70 61 76 69 66", "image/avif",
+        "1A 45 DF A3", "video/webm",
+        "49 44 33", "audio/mpeg",
+        "FF FB", "audio/mpeg",
+        "4F 67 67 53", "audio/ogg",
+        "66 4C 61 43", "audio/flac",
+        "4D 54 68 64", "audio/midi",
+        "25 50 44 46 2D", "application/pdf",
+        "25 21 50 53", "application/postscript",
+        "7B 5C 72 74 66", "application/rtf",
+        "50 4B 03 04", "application/zip",
+        "50 4B 05 06", "application/zip",
+        "1F 8B", "application/gzip",
+        "42 5A 68", "application/x-bzip2",
+        "37 7A BC AF 27 1C", "application/x-7z-compressed",
+        "52 61 72 21 1A 07", "application/vnd.rar",
+        "FD 37 7A 58 5A 00", "application/x-xz",
+        "28 B5 2F FD", "application/zstd",
+        "00 61 73 6D", "application/wasm",
+        "CA FE BA BE", "application/java-vm",
+        "77 4F 46 46", "font/woff",
+        "77 4F 46 32", "font/woff2",
+        "4F 54 54 4F", "font/otf",
+        "00 01 00 00 00", "font/ttf",
+    };
+
+    /**
+     * The text signatures in lower case
+     */
+    private static final String[] TEXT = {
+        "<?xml", "application/xml",
+        "<svg", "image/svg+xml",
+        "<!doctype html", "text/html",
+        "<html", "text/html",
+        "<head", "text/html",
+        "<body", "text/html",
+        "<title", "text/html",
+        "<script", "text/html",
+        "<iframe", "text/html",
+        "<!--", "text/html",
+        "{", "application/json",
+    };
+
+    private static final Node BINARY_TRIE = new Node();
+
+    private static final Node TEXT_TRIE = new Node();
+
+    static {
+        for (int i = 0; i < BINARY.length; i += 2) {
+            final String[] hex = BINARY[i].split(" ");
+            final int[] signature = new int[hex.length];
+            for (int j = 0; j < hex.length; j++) {
+                signature[j] = "??".equals(hex[j]) ? Node.ANY : Integer.parseInt(hex[j], 16);
+            }
+            BINARY_TRIE.insert(signature, MimeType.parse(BINARY[i + 1]));
+        }
+
+        for (int i = 0; i < TEXT.length; i += 2) {
+            final String text = TEXT[i];
+            final int[] signature = new int[text.length()];
+            for (int j = 0; j < signature.length; j++) {
+                signature[j] = text.charAt(j);
+            }
+            TEXT_TRIE.insert(signature, MimeType.parse(TEXT[i + 1]));
+        }
+    }
+
+    /**
+     * Detect the MIME type from the leading bytes
+     *
+     * @param data
+     *            The data
+     * @param offset
+     *            The offset of data
+     * @param length
+     *            The length of data
+     * @return the detected MIME type or null if unknown
+     */
+    static MimeType sniff(final byte[] data, final int offset, final int length) {
+        final int end = offset + Math.min(length, PREFIX_LENGTH);
+        final MimeType binary = BINARY_TRIE.match(data, offset, end, false);
+        if (null != binary) {
+            return binary;
+        }
+
+        int i = offset;
+        if (end - i >= 3 && (data[i] & 0xff) == 0xEF && (data[i + 1] & 0xff) == 0xBB && (data[i + 2] & 0xff) == 0xBF) {
+            i += 3;
+        }
+
+        while (i < end && (data[i] == ' ' || data[i] == '\t' || data[i] == '\r' || data[i] == '\n' || data[i] == '\f')) {
+            i++;
+        }
+
+        return TEXT_TRIE.match(data, i, end, true);
+    }
+
+    /**
+     * Detect the MIME type from the leading bytes of the specified stream, the
+     * stream is reset to the original position after detection
+     *
+     * @param in
+     *            The input stream which supports {@link InputStream#mark(int)}
+     * @return the detected MIME type or null if unknown
+     * @throws IOException
+     *             if read failed
+     */
+    static MimeType sniff(final InputStream in) throws IOException {
+        if (!in.markSupported()) {
+            throw new IllegalArgumentException("Mark is not supported by " + in);
+        }
+
+        final byte[] prefix = new byte[PREFIX_LENGTH];
+        int length = 0;
+
+        in.mark(PREFIX_LENGTH);
+        try {
+            for (int n; length < prefix.length && (n = in.read(prefix, length, prefix.length - length)) != -1;) {
+                length += n;
+            }
+        } finally {
+            in.reset();
+        }
+
+        return sniff(prefix, 0, length);
+    }
+
+    /**
+     * The node of byte trie
+     */
+    private static final class Node {
+
+        static final int ANY = -1;
+
+        private int[] keys = new int[0];
+
+        private Node[] children = new Node[0];
+
+        private MimeType mimeType;
+
+        void insert(final int[] signature, final MimeType mimeType) {
+            Node node = this;
+            for (final int key : signature) {
+                node = node.child(key);
+            }
+            node.mimeType = mimeType;
+        }
+
+        private Node child(final int key) {
+            for (int i = 0; i < this.keys.length; i++) {
+                if (this.keys[i] == key) {
+                    return this.children[i];
+                }
+            }
+
+            final int n = this.keys.length;
+            final int[] keys = new int[n + 1];
+            final Node[] children = new Node[n + 1];
+            System.arraycopy(this.keys, 0, keys, 0, n);
+            System.arraycopy(this.children, 0, children, 0, n);
+
+            // keep the wildcard as the last one, so that the exact bytes are preferred
+            final int i = key != ANY && n > 0 && keys[n - 1] == ANY ? n - 1 : n;
+            keys[n] = keys[i];
+            children[n] = children[i];
+            keys[i] = key;
+            children[i] = new Node();
+            this.keys = keys;
+            this.children = children;
+            return children[i];
+        }
+
+        /**
+         * Returns the MIME type of the longest matched signature
+         */
+        MimeType match(final byte[] data, final int pos, final int end, final boolean ignoreCase) {
+            MimeType matched = null;
+
+            if (pos < end) {
+                int b = data[pos] & 0xff;
+                if (ignoreCase && b >= 'A' && b <= 'Z') {
+                    b += 'a' - 'A';
+                }
+
+                for (int i = 0; i < this.keys.length && null == matched; i++) {
+                    if (this.keys[i] == b || this.keys[i] == ANY) {
+                        matched = this.children[i].match(data, pos + 1, end, ignoreCase);
+                    }
+                }
+            }
+
+            return null != matched ? matched : this.mimeType;
+        }
+    }
+
+    private MimeTypeSniffer() {
+    }
+}
@@ -0,0 +1,267 @@
+package com.sdklite.net;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The registry of file extensions and MIME types
+ *
+ * <p>
+ * The lookup is served by an immutable open addressing table keyed by the
+ * case-folded hash of extension, so that it doesn't allocate any string, the
+ * table is rebuilt and swapped atomically when an extension is registered.
+ * </p>
+ *
+ * @author johnsonlee
+ *
+ */
+final class MimeTypes {
+
+    private static final String[] BUILTIN = {
+        // text
+        "txt", "text/plain",
+        "text", "text/plain",
+        "log", "text/plain",
+        "conf", "text/plain",
+        "ini", "text/plain",
+        "properties", "text/plain",
+        "htm", "text/html",
+        "html", "text/html",
+        "shtml", "text/html",
+        "css", "text/css",
+        "csv", "text/csv",
+        "tsv", "text/tab-separated-values",
+        "md", "text/markdown",
+        "markdown", "text/markdown",
+        "rtf", "application/rtf",
+        "ics", "text/calendar",
+        "vcf", "text/vcard",
+        "yaml", "application/yaml",
+        "yml", "application/yaml",
+        "c", "text/x-c",
+        "h", "text/x-c",
+        "cpp", "text/x-c",
+        "java", "text/x-java-source",
+        "py", "text/x-python",
+        "sh", "application/x-sh",
+        // application
+        "js", "application/javascript",
+        "mjs", "application/javascript",
+        "json", "application/json",
+        "map", "application/json",
+        "jsonld", "application/ld+json",
+        "xml", "application/xml",
+        "xsl", "application/xml",
+        "xsd", "application/xml",
+        "dtd", "application/xml-dtd",
+        "xhtml", "application/xhtml+xml",
+        "rss", "application/rss+xml",
+        "atom", "application/atom+xml",
+        "pdf", "application/pdf",
+        "ps", "application/postscript",
+        "eps", "application/postscript",
+        "ai", "application/postscript",
+        "bin", "application/octet-stream",
+        "exe", "application/octet-stream",
+        "dll", "application/octet-stream",
+        "so", "application/octet-stream",
+        "class", "application/java-vm",
+        "jar", "application/java-archive",
+        "war", "application/java-archive",
+        "ear", "application/java-archive",
+        "apk", "application/vnd.android.package-archive",
+        "wasm", "application/wasm",
+        "doc", "application/msword",
+        "dot", "application/msword",
+        "docx", "application/vnd.openxmlformats-officedocument.wordprocessingml.document",
+        "xls", "application/vnd.ms-excel",
+        "xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet",
+        "ppt", "application/vnd.ms-powerpoint",
+        "pptx", "application/vnd.openxmlformats-officedocument.presentationml.presentation",
+        "odt", "application/vnd.oasis.opendocument.text",
+        "ods", "application/vnd.oasis.opendocument.spreadsheet",
+        "odp", "application/vnd.oasis.opendocument.presentation",
+        "epub", "application/epub+zip",
+        "swf", "application/x-shockwave-flash",
+        "latex", "application/x-latex",
+        "tex", "application/x-tex",
+        "sql", "application/sql",
+        "wsdl", "application/wsdl+xml",
+        "p12", "application/x-pkcs12",
+        "pfx", "application/x-pkcs12",
+        "crt", "application/x-x509-ca-cert",
+        "cer", "application/pkix-cert",
+        "der", "application/x-x509-ca-cert",
+        "pem", "application/x-pem-file",
+        // archive
+        "zip", "application/zip",
+        "gz", "application/gzip",
+        "tgz", "application/gzip",
+        "bz2", "application/x-bzip2",
+        "xz", "application/x-xz",
+        "7z", "application/x-7z-compressed",
+        "rar", "application/vnd.rar",
+        "tar", "application/x-tar",
+        "zst", "application/zstd",
+        "deb", "application/vnd.debian.binary-package",
+        "rpm", "application/x-rpm",
+        "dmg", "application/x-apple-diskimage",
+        "iso", "application/x-iso9660-image",
+        // image
+        "png", "image/png",
+        "jpg", "image/jpeg",
+        "jpeg", "image/jpeg",
+        "jpe", "image/jpeg",
+        "gif", "image/gif",
+        "bmp", "image/bmp",
+        "webp", "image/webp",
+        "svg", "image/svg+xml",
+        "svgz", "image/svg+xml",
+        "ico", "image/x-icon",
+        "tif", "image/tiff",
+        "tiff", "image/tiff",
+        "heic", "image/heic",
+        "heif", "image/heif",
+        "avif", "image/avif",
+        "psd", "image/vnd.adobe.photoshop",
+        // audio
+        "mp3", "audio/mpeg",
+        "m4a", "audio/mp4",
+        "aac", "audio/aac",
+        "oga", "audio/ogg",
+        "ogg", "audio/ogg",
+        "opus", "audio/opus",
+        "wav", "audio/wav",
+        "flac", "audio/flac",
+        "mid", "audio/midi",
+        "midi", "audio/midi",
+        "amr", "audio/amr",
+        "weba", "audio/webm",
+        // video
+        "mp4", "video/mp4",
+        "m4v", "video/mp4",
+        "mpeg", "video/mpeg",
+        "mpg", "video/mpeg",
+        "mov", "video/quicktime",
+        "qt", "video/quicktime",
+        "avi", "video/x-msvideo",
+        "wmv", "video/x-ms-wmv",
+        "flv", "video/x-flv",
+        "mkv", "video/x-matroska",
+        "webm", "video/webm",
+        "ogv", "video/ogg",
+        "3gp", "video/3gpp",
+        "3g2", "video/3gpp2",
+        "ts", "video/mp2t",
+        "m3u8", "application/vnd.apple.mpegurl",
+        // font
+        "ttf", "font/ttf",
+        "otf", "font/otf",
+        "woff", "font/woff",
+        "woff2", "font/woff2",
+        "eot", "application/vnd.ms-fontobject",
+    };
+
+    /**
+     * The registered extensions in lower case, guarded by the class lock
+     */
+    private static final Map<String, MimeType> registry = new HashMap<String, MimeType>();
+
+    private static volatile Table table;
+
+    static {
+        for (int i = 0; i < BUILTIN.length; i += 2) {
+            registry.put(BUILTIN[i], MimeType.parse(BUILTIN[i + 1]));
+        }
+        table = new Table(registry);
+    }
+
+    /**
+     * Returns the MIME type of the specified extension
+     *
+     * @param s
+     *            The string contains the extension
+     * @param start
+     *            The start index of the extension
+     * @param end
+     *            The end index of the extension
+     * @return the MIME type or null if the extension is unknown
+     */
+    static MimeType lookup(final String s, final int start, final int end) {
+        return table.get(s, start, end);
+    }
+
+    /**
+     * Register or override the MIME type of the specified extension
+     *
+     * @param extension
+     *            The file extension without leading dot
+     * @param mimeType
+     *            The MIME type
+     */
+    static synchronized void register(final String extension, final MimeType mimeType) {
+        registry.put(extension.toLowerCase(Locale.US), mimeType);
+        table = new Table(registry);
+    }
+
+    private static int hash(final String s, final int start, final int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            final char c = s.charAt(i);
+            h = 31 * h + (c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c);
+        }
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * The immutable open addressing table
+     */
+    private static final class Table {
+
+        private final String[] keys;
+
+        private final MimeType[] values;
+
+        private final int mask;
+
+        Table(final Map<String, MimeType> map) {
+            int capacity = 16;
+            while (capacity < map.size() * 2) {
+                capacity <<= 1;
+            }
+
+            this.keys = new String[capacity];
+            this.values = new MimeType[capacity];
+            this.mask = capacity - 1;
+
+            for (final Map.Entry<String, MimeType> entry : map.entrySet()) {
+                final String key = entry.getKey();
+                int i = hash(key, 0, key.length()) & this.mask;
+                while (null != this.keys[i]) {
+                    i = (i + 1) & this.mask;
+                }
+                this.keys[i] = key;
+                this.values[i] = entry.getValue();
+            }
+        }
+
+        MimeType get(final String s, final int start, final int end) {
+            final int length = end - start;
+
+            for (int i = hash(s, start, end) & this.mask;; i = (i + 1) & this.mask) {
+                final String key = this.keys[i];
+                if (null == key) {
+                    return null;
+                }
+
+                if (key.length() == length && key.regionMatches(true, 0, s, start, length)) {
+                    return this.values[i];
+                }
+            }
+        }
+    }
+
+    private MimeTypes() {
+    }
+}
@@ -0,0 +1,53 @@
+package com.sdklite.net;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@link AddressSelector} which rotates the addresses of each hostname on
+ * every selection, so that the connections are spread across all addresses
+ *
+ * @author johnsonlee
+ *
+ */
+public class RoundRobinAddressSelector implements AddressSelector {
+
+    private static final int CACHE_SIZE = 1024;
+
+    /**
+     * The rotation counter of each hostname, it's cleared once it's full
+     */
+    private final ConcurrentMap<String, AtomicInteger> counters = new ConcurrentHashMap<String, AtomicInteger>();
+
+    @Override
+    public List<InetAddress> select(final String hostname, final List<InetAddress> addresses) {
+        final int n = addresses.size();
+        if (n < 2) {
+            return addresses;
+        }
+
+        AtomicInteger counter = this.counters.get(hostname);
+        if (null == counter) {
+            if (this.counters.size() >= CACHE_SIZE) {
+                this.counters.clear();
+            }
+
+            final AtomicInteger existing = this.counters.putIfAbsent(hostname, counter = new AtomicInteger());
+            if (null != existing) {
+                counter = existing;
+            }
+        }
+
+        final int offset = (counter.getAndIncrement() & Integer.MAX_VALUE) % n;
+        final List<InetAddress> rotated = new ArrayList<InetAddress>(n);
+        rotated.addAll(addresses.subList(offset, n));
+        rotated.addAll(addresses.subList(0, offset));
+        return Collections.unmodifiableList(rotated);
+    }
+
+}
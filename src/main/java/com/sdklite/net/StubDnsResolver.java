@@ -0,0 +1,468 @@
+package com.sdklite.net;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The stub {@link DnsResolver} which speaks the DNS protocol to the configured
+ * nameservers directly, instead of the resolver of operating system
+ *
+ * <p>
+ * The {@code A} and {@code AAAA} queries are sent in parallel over a
+ * non-blocking {@link DatagramChannel}, the unanswered queries are retried
+ * against the next nameserver on timeout, and the truncated responses are
+ * queried again over TCP. The resolved addresses are cached for the minimum
+ * TTL of the address records.
+ * </p>
+ *
+ * @author johnsonlee
+ *
+ */
+public class StubDnsResolver implements DnsResolver {
+
+    private static final int DNS_PORT = 53;
+
+    private static final int MAX_UDP_SIZE = 512;
+
+    private static final int CACHE_SIZE = 1024;
+
+    private static final File RESOLV_CONF = new File("/etc/resolv.conf");
+
+    private static final Random RANDOM = new SecureRandom();
+
+    private static final class Entry {
+
+        final List<InetAddress> addresses;
+
+        final long expiresAt;
+
+        Entry(final List<InetAddress> addresses, final long expiresAt) {
+            this.addresses = addresses;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static final class Query {
+
+        final int type;
+
+        final int id;
+
+        final byte[] packet;
+
+        DnsMessage response;
+
+        Query(final String hostname, final int type) throws UnknownHostException {
+            this.type = type;
+            this.id = RANDOM.nextInt(0x10000);
+            this.packet = DnsMessage.encodeQuery(this.id, hostname, type);
+        }
+    }
+
+    private final List<InetSocketAddress> nameservers;
+
+    private final long timeout;
+
+    private final int retries;
+
+    private final boolean ipv6;
+
+    private final long maxTtl;
+
+    /**
+     * The resolved addresses before expiration, it's cleared once it's full
+     */
+    private final ConcurrentMap<String, Entry> cache = new ConcurrentHashMap<String, Entry>();
+
+    private StubDnsResolver(final Builder builder) {
+        this.nameservers = Collections.unmodifiableList(new ArrayList<InetSocketAddress>(builder.nameservers));
+        this.timeout = builder.timeout;
+        this.retries = builder.retries;
+        this.ipv6 = builder.ipv6;
+        this.maxTtl = builder.maxTtl;
+    }
+
+    /**
+     * Returns the nameservers in order of preference
+     */
+    public List<InetSocketAddress> getNameservers() {
+        return this.nameservers;
+    }
+
+    @Override
+    public List<InetAddress> resolve(final String hostname) throws UnknownHostException {
+        if (isLiteral(hostname)) {
+            return Collections.singletonList(InetAddress.getByName(hostname));
+        }
+
+        final Entry entry = this.cache.get(hostname);
+        if (null != entry && System.nanoTime() - entry.expiresAt < 0) {
+            return entry.addresses;
+        }
+
+        final Query[] queries = this.ipv6
+                ? new Query[] { new Query(hostname, DnsMessage.TYPE_A), new Query(hostname, DnsMessage.TYPE_AAAA) }
+                : new Query[] { new Query(hostname, DnsMessage.TYPE_A) };
+
+        final boolean failed;
+
+        try {
+            failed = query(hostname, queries);
+        } catch (final IOException e) {
+            throw (UnknownHostException) new UnknownHostException(hostname).initCause(e);
+        }
+
+        final List<InetAddress> addresses = new ArrayList<InetAddress>();
+        boolean answered = false;
+        long ttl = -1;
+
+        for (final Query query : queries) {
+            if (null == query.response) {
+                continue;
+            }
+
+            if (DnsMessage.RCODE_NXDOMAIN == query.response.rcode) {
+                throw new UnknownHostException(hostname);
+            }
+
+            answered = true;
+            addresses.addAll(query.response.addresses);
+
+            if (query.response.ttl >= 0) {
+                ttl = ttl < 0 ? query.response.ttl : Math.min(ttl, query.response.ttl);
+            }
+        }
+
+        if (!answered) {
+            throw new UnknownHostException(hostname + (failed ? ": DNS server failure" : ": DNS query timed out"));
+        }
+
+        if (addresses.isEmpty()) {
+            throw new UnknownHostException(hostname);
+        }
+
+        final List<InetAddress> result = Collections.unmodifiableList(addresses);
+        final long lifetime = Math.min(TimeUnit.SECONDS.toNanos(ttl), this.maxTtl);
+
+        if (lifetime > 0) {
+            if (this.cache.size() >= CACHE_SIZE) {
+                this.cache.clear();
+            }
+
+            this.cache.put(hostname, new Entry(result, System.nanoTime() + lifetime));
+        }
+
+        return result;
+    }
+
+    /**
+     * Send the queries in parallel, and wait for the responses until all of
+     * them are answered or the retries are exhausted, the pending queries are
+     * sent to the next nameserver immediately once a nameserver fails
+     *
+     * @return true if any nameserver responded with failure
+     */
+    private boolean query(final String hostname, final Query[] queries) throws IOException {
+        final DatagramChannel channel = DatagramChannel.open();
+        final Selector selector = Selector.open();
+
+        try {
+            channel.configureBlocking(false);
+            channel.register(selector, SelectionKey.OP_READ);
+
+            final ByteBuffer buf = ByteBuffer.allocate(MAX_UDP_SIZE);
+            int pending = queries.length;
+            boolean failed = false;
+
+            for (int attempt = 0; attempt <= this.retries && pending > 0; attempt++) {
+                final InetSocketAddress server = this.nameservers.get(attempt % this.nameservers.size());
+
+                for (final Query query : queries) {
+                    if (null == query.response) {
+                        channel.send(ByteBuffer.wrap(query.packet), server);
+                    }
+                }
+
+                final long deadline = System.nanoTime() + this.timeout;
+                boolean failover = false;
+
+                for (long remaining = this.timeout; pending > 0 && remaining > 0 && !failover; remaining = deadline - System.nanoTime()) {
+                    selector.select(Math.max(1, TimeUnit.NANOSECONDS.toMillis(remaining)));
+                    selector.selectedKeys().clear();
+
+                    for (SocketAddress from; null != (from = receive(channel, buf));) {
+                        if (!this.nameservers.contains(from)) {
+                            continue;
+                        }
+
+                        final Query query = find(queries, DnsMessage.peekId(buf));
+                        if (null == query) {
+                            continue;
+                        }
+
+                        final DnsMessage response;
+                        try {
+                            response = DnsMessage.decode(buf, hostname, query.packet);
+                        } catch (final IOException e) {
+                            continue; // wait for the valid response
+                        }
+
+                        if (response.truncated) {
+                            try {
+                                query.response = queryTcp((InetSocketAddress) from, hostname, query);
+                            } catch (final IOException e) {
+                                // retry on the next attempt
+                            }
+                        } else if (DnsMessage.RCODE_NOERROR == response.rcode || DnsMessage.RCODE_NXDOMAIN == response.rcode) {
+                            query.response = response;
+                        } else {
+                            // e.g. SERVFAIL or REFUSED, there is no point to wait for this nameserver
+                            failed = failover = true;
+                        }
+
+                        if (null != query.response) {
+                            pending--;
+                        }
+                    }
+                }
+            }
+
+            return failed;
+        } finally {
+            selector.close();
+            channel.close();
+        }
+    }
+
+    private static SocketAddress receive(final DatagramChannel channel, final ByteBuffer buf) throws IOException {
+        buf.clear();
+        final SocketAddress from = channel.receive(buf);
+        buf.flip();
+        return from;
+    }
+
+    private static Query find(final Query[] queries, final int id) {
+        for (final Query query : queries) {
+            if (query.id == id && null == query.response) {
+                return query;
+            }
+        }
+
+        return null;
+    }
+
+    private DnsMessage queryTcp(final InetSocketAddress server, final String hostname, final Query query) throws IOException {
+        final int timeout = (int) Math.max(1, TimeUnit.NANOSECONDS.toMillis(this.timeout));
+        final Socket socket = new Socket();
+
+        try {
+            socket.connect(server, timeout);
+            socket.setSoTimeout(timeout);
+
+            final DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            out.writeShort(query.packet.length);
+            out.write(query.packet);
+            out.flush();
+
+            final DataInputStream in = new DataInputStream(socket.getInputStream());
+            final byte[] response = new byte[in.readUnsignedShort()];
+            in.readFully(response);
+
+            return DnsMessage.decode(ByteBuffer.wrap(response), hostname, query.packet);
+        } finally {
+            socket.close();
+        }
+    }
+
+    private static boolean isLiteral(final String hostname) {
+        if (hostname.indexOf(':') >= 0) {
+            return true;
+        }
+
+        for (int i = 0, n = hostname.length(); i < n; i++) {
+            final char c = hostname.charAt(i);
+            if (c != '.' && (c < '0' || c > '9')) {
+                return false;
+            }
+        }
+
+        return hostname.length() > 0;
+    }
+
+    /**
+     * Represents the builder of {@link StubDnsResolver}
+     *
+     * @author johnsonlee
+     *
+     */
+    public static final class Builder {
+
+        private final List<InetSocketAddress> nameservers = new ArrayList<InetSocketAddress>();
+
+        private long timeout = TimeUnit.SECONDS.toNanos(2);
+
+        private int retries = 2;
+
+        private boolean ipv6 = true;
+
+        private long maxTtl = TimeUnit.HOURS.toNanos(1);
+
+        /**
+         * Add a nameserver on the standard port
+         *
+         * @param address
+         *            The IP address of nameserver
+         * @return this builder
+         */
+        public Builder addNameserver(final InetAddress address) {
+            return addNameserver(new InetSocketAddress(address, DNS_PORT));
+        }
+
+        /**
+         * Add a nameserver, the nameservers are queried in order of addition
+         *
+         * @param address
+         *            The socket address of nameserver
+         * @return this builder
+         */
+        public Builder addNameserver(final InetSocketAddress address) {
+            if (null == address || address.isUnresolved()) {
+                throw new IllegalArgumentException("Resolved nameserver address is required");
+            }
+
+            this.nameservers.add(address);
+            return this;
+        }
+
+        /**
+         * Sets the timeout of each attempt, 2 seconds by default
+         *
+         * @param timeout
+         *            The timeout
+         * @param unit
+         *            The time unit of timeout
+         * @return this builder
+         */
+        public Builder setTimeout(final long timeout, final TimeUnit unit) {
+            if (timeout <= 0) {
+                throw new IllegalArgumentException("Timeout must be positive");
+            }
+
+            this.timeout = unit.toNanos(timeout);
+            return this;
+        }
+
+        /**
+         * Sets the number of retries after the first attempt, 2 by default
+         *
+         * @param retries
+         *            The number of retries
+         * @return this builder
+         */
+        public Builder setRetries(final int retries) {
+            if (retries < 0) {
+                throw new IllegalArgumentException("Retries must not be negative");
+            }
+
+            this.retries = retries;
+            return this;
+        }
+
+        /**
+         * Sets whether to query {@code AAAA} records along with {@code A}
+         * records, enabled by default
+         *
+         * @param ipv6
+         *            true to query IPv6 addresses
+         * @return this builder
+         */
+        public Builder setIpv6Enabled(final boolean ipv6) {
+            this.ipv6 = ipv6;
+            return this;
+        }
+
+        /**
+         * Sets the upper bound of record TTLs, 1 hour by default, 0 to disable
+         * caching
+         *
+         * @param maxTtl
+         *            The maximum TTL
+         * @param unit
+         *            The time unit of maximum TTL
+         * @return this builder
+         */
+        public Builder setMaxTtl(final long maxTtl, final TimeUnit unit) {
+            if (maxTtl < 0) {
+                throw new IllegalArgumentException("Maximum TTL must not be negative");
+            }
+
+            this.maxTtl = unit.toNanos(maxTtl);
+            return this;
+        }
+
+        /**
+         * Instantialize a {@link StubDnsResolver}, the nameservers of
+         * {@code /etc/resolv.conf} are used if none is added
+         *
+         * @return an instance of {@link StubDnsResolver}
+         * @throws IllegalStateException
+         *             if no nameserver is available
+         */
+        public StubDnsResolver build() {
+            if (this.nameservers.isEmpty()) {
+                readResolvConf();
+            }
+
+            if (this.nameservers.isEmpty()) {
+                throw new IllegalStateException("No nameserver available");
+            }
+
+            return new StubDnsResolver(this);
+        }
+
+        private void readResolvConf() {
+            if (!RESOLV_CONF.isFile()) {
+                return;
+            }
+
+            try {
+                final BufferedReader reader = new BufferedReader(new FileReader(RESOLV_CONF));
+
+                try {
+                    for (String line; null != (line = reader.readLine());) {
+                        final String[] fields = line.trim().split("\\s+");
+                        if (fields.length >= 2 && "nameserver".equals(fields[0]) && isLiteral(fields[1])) {
+                            addNameserver(InetAddress.getByName(fields[1]));
+                        }
+                    }
+                } finally {
+                    reader.close();
+                }
+            } catch (final IOException e) {
+                // fall through with the nameservers read so far
+            }
+        }
+    }
+
+}
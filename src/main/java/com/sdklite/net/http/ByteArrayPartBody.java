@@ -4,6 +4,7 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 import com.sdklite.net.MimeType;
 
@@ -52,6 +53,11 @@ class ByteArrayPartBody extends PartBody {
         out.write(this.data, this.offset, this.length);
     }
 
+    @Override
+    ByteBuffer getBuffer() {
+        return ByteBuffer.wrap(this.data, this.offset, this.length).asReadOnlyBuffer();
+    }
+
     @Override
     public long getContentLength() {
         return this.length;
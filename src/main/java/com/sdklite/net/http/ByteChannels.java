@@ -0,0 +1,81 @@
+package com.sdklite.net.http;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Utilities for writing buffers into channel
+ *
+ * @author johnsonlee
+ *
+ */
+abstract class ByteChannels {
+
+    /**
+     * Write all remaining bytes of the specified buffer into the channel
+     *
+     * @param channel
+     *            The channel in blocking mode
+     * @param buffer
+     *            The buffer to write
+     * @throws IOException
+     *             if write failed, or the channel accepted no byte
+     */
+    static void writeFully(final WritableByteChannel channel, final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.write(buffer) <= 0) {
+                throw noByteAccepted(channel);
+            }
+        }
+    }
+
+    /**
+     * Write all remaining bytes of the specified buffers into the channel, a
+     * single gathering write is used for as many buffers as possible if the
+     * channel is a {@link GatheringByteChannel}
+     *
+     * @param channel
+     *            The channel in blocking mode
+     * @param buffers
+     *            The buffers to write
+     * @param offset
+     *            The offset of the first buffer to write
+     * @param length
+     *            The number of buffers to write
+     * @throws IOException
+     *             if write failed, or the channel accepted no byte
+     */
+    static void writeFully(final WritableByteChannel channel, final ByteBuffer[] buffers, final int offset, final int length) throws IOException {
+        if (channel instanceof GatheringByteChannel) {
+            final GatheringByteChannel gathering = (GatheringByteChannel) channel;
+
+            for (int i = offset, end = offset + length; i < end;) {
+                if (!buffers[i].hasRemaining()) {
+                    i++;
+                    continue;
+                }
+
+                if (gathering.write(buffers, i, end - i) <= 0) {
+                    throw noByteAccepted(channel);
+                }
+            }
+        } else {
+            for (int i = offset, end = offset + length; i < end; i++) {
+                writeFully(channel, buffers[i]);
+            }
+        }
+    }
+
+    /**
+     * A blocking channel always accepts some bytes, don't spin on a
+     * non-blocking or full one
+     */
+    private static IOException noByteAccepted(final WritableByteChannel channel) {
+        return new IOException("No byte was accepted by " + channel);
+    }
+
+    private ByteChannels() {
+    }
+}
@@ -0,0 +1,90 @@
+package com.sdklite.net.http;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * The {@link WritableByteChannel} which encodes the bytes written into it
+ * with the chunked transfer coding as defined in
+ * <a href="https://tools.ietf.org/html/rfc7230#section-4.1">RFC 7230</a>
+ *
+ * <p>
+ * Each write is sent as one chunk with the chunk header and trailing CRLF in
+ * a single gathering write, the last chunk is sent on close. The underlying
+ * channel is expected to be in blocking mode and is left open.
+ * </p>
+ *
+ * @author johnsonlee
+ *
+ */
+final class ChunkedChannel implements WritableByteChannel {
+
+    private static final byte[] HEX = { '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f' };
+
+    private static final byte[] LAST_CHUNK = { '0', '\r', '\n', '\r', '\n' };
+
+    private final WritableByteChannel channel;
+
+    /**
+     * The chunk header, the chunk data and the trailing CRLF
+     */
+    private final ByteBuffer[] buffers = { ByteBuffer.allocate(10), null, ByteBuffer.allocate(2) };
+
+    private boolean open = true;
+
+    ChunkedChannel(final WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    public int write(final ByteBuffer src) throws IOException {
+        if (!this.open) {
+            throw new ClosedChannelException();
+        }
+
+        // an empty chunk would be taken as the last one
+        final int n = src.remaining();
+        if (n <= 0) {
+            return 0;
+        }
+
+        final ByteBuffer head = this.buffers[0];
+        head.clear();
+        for (int shift = (31 - Integer.numberOfLeadingZeros(n)) & ~3; shift >= 0; shift -= 4) {
+            head.put(HEX[(n >>> shift) & 0xf]);
+        }
+        head.put((byte) '\r').put((byte) '\n').flip();
+
+        final ByteBuffer tail = this.buffers[2];
+        tail.clear();
+        tail.put((byte) '\r').put((byte) '\n').flip();
+
+        this.buffers[1] = src;
+        try {
+            ByteChannels.writeFully(this.channel, this.buffers, 0, this.buffers.length);
+        } finally {
+            this.buffers[1] = null;
+        }
+
+        return n;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return this.open && this.channel.isOpen();
+    }
+
+    /**
+     * Write the last chunk without closing the underlying channel
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.open) {
+            this.open = false;
+            ByteChannels.writeFully(this.channel, ByteBuffer.wrap(LAST_CHUNK));
+        }
+    }
+
+}
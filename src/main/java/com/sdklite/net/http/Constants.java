@@ -10,6 +10,8 @@ interface Constants {
 
     static final MimeType TEXT_PLAIN = MimeType.parse("text/plain");
 
+    static final MimeType APPLICATION_X_WWW_FORM_URLENCODED = MimeType.parse("application/x-www-form-urlencoded");
+
     static final String CONTENT_TRANSFER_ENCODING_7BIT = "7bit";
 
     static final String CONTENT_TRANSFER_ENCODING_8BIT = "8bit";
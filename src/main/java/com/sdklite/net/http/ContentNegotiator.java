@@ -0,0 +1,230 @@
+package com.sdklite.net.http;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.sdklite.net.MalformedMimeTypeException;
+import com.sdklite.net.MimeType;
+
+/**
+ * Selects the best producible media type for the {@code Accept} header as
+ * defined in <a href="https://tools.ietf.org/html/rfc7231#section-5.3.2">RFC
+ * 7231</a>
+ *
+ * <p>
+ * Each producible type takes the quality of the most specific media range
+ * which includes it, the type with the highest quality wins, ties are broken
+ * by the specificity of the matched range, and then by the order of the
+ * producible types. The result is memoized per distinct {@code Accept} header.
+ * </p>
+ *
+ * @author johnsonlee
+ *
+ */
+public class ContentNegotiator {
+
+    private static final int CACHE_SIZE = 1024;
+
+    private static final Integer NOT_ACCEPTABLE = -1;
+
+    private final List<MimeType> producibleTypes;
+
+    /**
+     * The index of the selected producible type of each {@code Accept}
+     * header, it's cleared once it's full
+     */
+    private final ConcurrentMap<String, Integer> cache = new ConcurrentHashMap<String, Integer>();
+
+    /**
+     * Create an instance with the producible types in order of preference
+     *
+     * @param producibleTypes
+     *            The producible types
+     */
+    public ContentNegotiator(final MimeType... producibleTypes) {
+        this(Arrays.asList(producibleTypes));
+    }
+
+    /**
+     * Create an instance with the producible types in order of preference
+     *
+     * @param producibleTypes
+     *            The producible types
+     */
+    public ContentNegotiator(final List<MimeType> producibleTypes) {
+        if (producibleTypes.isEmpty()) {
+            throw new IllegalArgumentException("Producible types are required");
+        }
+
+        this.producibleTypes = Collections.unmodifiableList(new ArrayList<MimeType>(producibleTypes));
+    }
+
+    /**
+     * Returns the producible types
+     */
+    public List<MimeType> getProducibleTypes() {
+        return this.producibleTypes;
+    }
+
+    /**
+     * Returns the best producible type for the specified {@code Accept} header
+     *
+     * @param accept
+     *            The value of {@code Accept} header, null if absent
+     * @return the best producible type, or null if none of the producible
+     *         types is acceptable
+     */
+    public MimeType negotiate(final String accept) {
+        if (null == accept) {
+            return this.producibleTypes.get(0);
+        }
+
+        Integer index = this.cache.get(accept);
+
+        if (null == index) {
+            index = select(parseAccept(accept));
+
+            if (this.cache.size() >= CACHE_SIZE) {
+                this.cache.clear();
+            }
+
+            this.cache.put(accept, index);
+        }
+
+        return NOT_ACCEPTABLE.equals(index) ? null : this.producibleTypes.get(index);
+    }
+
+    /**
+     * Returns the best producible type for the {@code Accept} header of the
+     * specified request
+     *
+     * @param request
+     *            The HTTP request
+     * @return the best producible type, or null if none of the producible
+     *         types is acceptable
+     */
+    public MimeType negotiate(final HttpRequest request) {
+        return negotiate(request.getHeader(HttpHeaderName.ACCEPT));
+    }
+
+    private Integer select(final List<MediaRange> ranges) {
+        if (ranges.isEmpty()) {
+            return 0;
+        }
+
+        int best = NOT_ACCEPTABLE;
+        float bestQuality = 0;
+        int bestSpecificity = -1;
+
+        for (int i = 0, n = this.producibleTypes.size(); i < n; i++) {
+            final MimeType type = this.producibleTypes.get(i);
+            MediaRange matched = null;
+
+            for (final MediaRange range : ranges) {
+                if (range.range.includes(type) && (null == matched || range.specificity > matched.specificity)) {
+                    matched = range;
+                }
+            }
+
+            if (null == matched || matched.quality <= 0) {
+                continue;
+            }
+
+            if (matched.quality > bestQuality || (matched.quality == bestQuality && matched.specificity > bestSpecificity)) {
+                best = i;
+                bestQuality = matched.quality;
+                bestSpecificity = matched.specificity;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Parse the {@code Accept} header into media ranges, the malformed
+     * elements are ignored
+     */
+    private static List<MediaRange> parseAccept(final String accept) {
+        final List<MediaRange> ranges = new ArrayList<MediaRange>();
+        boolean quoted = false;
+
+        for (int i = 0, start = 0, n = accept.length(); i <= n; i++) {
+            final char c = i < n ? accept.charAt(i) : ',';
+
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && (!quoted || i == n)) {
+                final MediaRange range = MediaRange.parse(accept.substring(start, i).trim());
+                if (null != range) {
+                    ranges.add(range);
+                }
+                start = i + 1;
+            }
+        }
+
+        return ranges;
+    }
+
+    /**
+     * The precompiled media range
+     */
+    private static final class MediaRange {
+
+        static MediaRange parse(final String element) {
+            if (element.length() == 0) {
+                return null;
+            }
+
+            final MimeType range;
+            try {
+                range = MimeType.parse("*".equals(element) ? "*/*" : element);
+            } catch (final MalformedMimeTypeException e) {
+                return null;
+            }
+
+            if (null == range) {
+                return null;
+            }
+
+            float quality = 1;
+            final String q = range.getParameter("q");
+            if (null != q) {
+                try {
+                    quality = Math.max(0, Math.min(1, Float.parseFloat(q)));
+                } catch (final NumberFormatException e) {
+                    return null;
+                }
+            }
+
+            final int specificity;
+            if (range.isWildcardType()) {
+                specificity = 0;
+            } else if ("*".equals(range.getSubtype())) {
+                specificity = 1;
+            } else if (range.isWildcardSubtype()) {
+                specificity = 2;
+            } else {
+                specificity = 3;
+            }
+
+            return new MediaRange(range, quality, specificity);
+        }
+
+        final MimeType range;
+
+        final float quality;
+
+        final int specificity;
+
+        MediaRange(final MimeType range, final float quality, final int specificity) {
+            this.range = range;
+            this.quality = quality;
+            this.specificity = specificity;
+        }
+    }
+
+}
@@ -1,9 +1,11 @@
 package com.sdklite.net.http;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.WritableByteChannel;
 
 import com.sdklite.net.MimeType;
 
@@ -11,8 +13,13 @@ class FilePartBody extends PartBody {
 
     private final File file;
 
+    /**
+     * Create an instance, the content type is guessed from the file extension,
+     * or detected from the leading bytes of file on demand if the extension is
+     * unknown
+     */
     public FilePartBody(final File file) {
-        this(file, MimeType.guess(file, Constants.APPLICATION_OCTET_STREAM));
+        this(file, null);
     }
 
     public FilePartBody(final File file, final MimeType contentType) {
@@ -20,11 +27,27 @@ class FilePartBody extends PartBody {
         this.file = file;
     }
 
+    @Override
+    MimeType detectContentType() throws IOException {
+        final InputStream in = new BufferedInputStream(new FileInputStream(this.file));
+
+        try {
+            return MimeType.sniff(in, Constants.APPLICATION_OCTET_STREAM);
+        } finally {
+            in.close();
+        }
+    }
+
     @Override
     public InputStream getContent() throws IOException {
         return new FileInputStream(this.file);
     }
 
+    @Override
+    public void writeTo(final WritableByteChannel channel) throws IOException {
+        FileTransfer.transferTo(this.file, channel);
+    }
+
     @Override
     public long getContentLength() {
         return file.length();
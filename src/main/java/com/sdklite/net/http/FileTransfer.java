@@ -0,0 +1,65 @@
+package com.sdklite.net.http;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Transfers file content into channel with {@link FileChannel#transferTo(long, long, WritableByteChannel)},
+ * which allows the operating system to move the bytes from file system cache
+ * to the target channel directly without copying them through the Java heap
+ *
+ * @author johnsonlee
+ *
+ */
+abstract class FileTransfer {
+
+    /**
+     * Transfer the whole content of the specified file into the target channel
+     *
+     * @param file
+     *            The file to transfer
+     * @param target
+     *            The target channel in blocking mode
+     * @return the number of bytes transferred
+     * @throws EOFException
+     *             if the file was truncated during transferring
+     * @throws IOException
+     *             if I/O error occurred, or the target accepted no byte
+     */
+    static long transferTo(final File file, final WritableByteChannel target) throws IOException {
+        final FileInputStream in = new FileInputStream(file);
+
+        try {
+            final FileChannel channel = in.getChannel();
+            final long size = channel.size();
+            long position = 0;
+
+            // transferTo might transfer fewer bytes than requested, e.g. at most 2GB per call on Linux
+            while (position < size) {
+                final long n = channel.transferTo(position, size - position, target);
+                if (n > 0) {
+                    position += n;
+                    continue;
+                }
+
+                if (position >= channel.size()) {
+                    throw new EOFException("File " + file + " was truncated to " + position + " of " + size + " bytes");
+                }
+
+                // a blocking target always accepts some bytes, don't spin on a non-blocking or full one
+                throw new IOException("No byte was accepted by " + target);
+            }
+
+            return position;
+        } finally {
+            in.close();
+        }
+    }
+
+    private FileTransfer() {
+    }
+}
@@ -5,7 +5,6 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.net.URLEncoder;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -25,10 +24,35 @@ import com.sdklite.net.MimeType;
  */
 public class FormBody extends HttpBody {
 
+    private static final long UNCOMPUTED = Long.MIN_VALUE;
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    /**
+     * Parse the {@code application/x-www-form-urlencoded} body with the
+     * default limits of {@link FormUrlDecoder}
+     * 
+     * @param in
+     *            The encoded body
+     * @return an instance of {@link FormBody}
+     * @throws IOException
+     *             if read failed, the body is malformed or any limit is
+     *             exceeded
+     */
+    public static FormBody parse(final InputStream in) throws IOException {
+        return new FormUrlDecoder().decode(in).finish();
+    }
+
     private final Map<String, List<String>> values;
 
+    private volatile long contentLength = UNCOMPUTED;
+
     private FormBody(final Builder builder) {
-        this.values = Collections.unmodifiableMap(builder.values);
+        final Map<String, List<String>> values = new LinkedHashMap<String, List<String>>();
+        for (final Map.Entry<String, List<String>> entry : builder.values.entrySet()) {
+            values.put(entry.getKey(), Collections.unmodifiableList(new ArrayList<String>(entry.getValue())));
+        }
+        this.values = Collections.unmodifiableMap(values);
     }
 
     /**
@@ -53,18 +77,57 @@ public class FormBody extends HttpBody {
 
     @Override
     public MimeType getContentType() {
-        return MimeType.parse("application/x-www-form-urlencoded");
+        return Constants.APPLICATION_X_WWW_FORM_URLENCODED;
+    }
+
+    /**
+     * Returns the exact length of the encoded form, the length is calculated
+     * without encoding the form and cached after the first call
+     */
+    @Override
+    public long getContentLength() {
+        long length = this.contentLength;
+        if (UNCOMPUTED == length) {
+            this.contentLength = length = computeContentLength();
+        }
+
+        return length;
+    }
+
+    private long computeContentLength() {
+        long length = 0;
+
+        for (final Iterator<Map.Entry<String, List<String>>> i = this.values.entrySet().iterator(); i.hasNext();) {
+            final Map.Entry<String, List<String>> entry = i.next();
+            final long nameLength = FormUrlEncoder.encodedLength(entry.getKey());
+
+            for (final Iterator<String> j = entry.getValue().iterator(); j.hasNext();) {
+                length += nameLength + 1 + FormUrlEncoder.encodedLength(j.next());
+
+                if (j.hasNext()) {
+                    length++;
+                }
+            }
+
+            if (i.hasNext()) {
+                length++;
+            }
+        }
+
+        return length;
     }
 
     @Override
     public InputStream getContent() throws IOException {
-        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream((int) getContentLength());
         writeTo(out);
         return new ByteArrayInputStream(out.toByteArray());
     }
 
     @Override
     public void writeTo(final OutputStream out) throws IOException {
+        final FormUrlEncoder encoder = new FormUrlEncoder(out, (int) Math.min(getContentLength(), BUFFER_SIZE));
+
         for (final Iterator<Map.Entry<String, List<String>>> i = this.values.entrySet().iterator(); i.hasNext();) {
             final Map.Entry<String, List<String>> entry = i.next();
             final String name = entry.getKey();
@@ -72,20 +135,21 @@ public class FormBody extends HttpBody {
             for (final Iterator<String> j = entry.getValue().iterator(); j.hasNext();) {
                 final String value = j.next();
 
-                out.write(URLEncoder.encode(name, "UTF-8").getBytes(Constants.UTF_8));
-                out.write('=');
-                out.write(URLEncoder.encode(value, "UTF-8").getBytes(Constants.UTF_8));
+                encoder.encode(name);
+                encoder.write('=');
+                encoder.encode(value);
 
                 if (j.hasNext()) {
-                    out.write('&');
+                    encoder.write('&');
                 }
             }
 
             if (i.hasNext()) {
-                out.write('&');
+                encoder.write('&');
             }
         }
 
+        encoder.flush();
         out.flush();
     }
 
@@ -115,7 +179,9 @@ public class FormBody extends HttpBody {
         }
 
         private Builder(final FormBody form) {
-            this.values.putAll(form.values);
+            for (final Map.Entry<String, List<String>> entry : form.values.entrySet()) {
+                this.values.put(entry.getKey(), new ArrayList<String>(entry.getValue()));
+            }
         }
 
         /**
@@ -0,0 +1,241 @@
+package com.sdklite.net.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * The incremental {@code application/x-www-form-urlencoded} decoder in
+ * {@code UTF-8}, the body is fed in chunks and decoded into {@link FormBody}
+ *
+ * <p>
+ * The percent-escapes are decoded into a reusable byte buffer, only the
+ * decoded names and values are converted to strings. The number of fields, the
+ * length of names and the total size are limited, so that hostile payloads
+ * could not exhaust the memory.
+ * </p>
+ *
+ * <p>
+ * This decoder is not thread safe.
+ * </p>
+ *
+ * @author johnsonlee
+ *
+ */
+public class FormUrlDecoder {
+
+    /**
+     * The default maximum number of fields
+     */
+    public static final int DEFAULT_MAX_FIELDS = 1000;
+
+    /**
+     * The default maximum length of decoded field name in bytes
+     */
+    public static final int DEFAULT_MAX_NAME_LENGTH = 1024;
+
+    /**
+     * The default maximum size of encoded body in bytes
+     */
+    public static final long DEFAULT_MAX_SIZE = 2 * 1024 * 1024;
+
+    private static final int BUFFER_SIZE = 4 * 1024;
+
+    private static final int NORMAL = 0;
+
+    private static final int ESCAPE_HIGH = 1;
+
+    private static final int ESCAPE_LOW = 2;
+
+    private final int maxFields;
+
+    private final int maxNameLength;
+
+    private final long maxSize;
+
+    private final FormBody.Builder builder = new FormBody.Builder();
+
+    private byte[] buf = new byte[64];
+
+    private int count;
+
+    private String name;
+
+    private int state = NORMAL;
+
+    private int high;
+
+    private int fields;
+
+    private long size;
+
+    /**
+     * Create an instance with default limits
+     */
+    public FormUrlDecoder() {
+        this(DEFAULT_MAX_FIELDS, DEFAULT_MAX_NAME_LENGTH, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Create an instance with the specified limits
+     *
+     * @param maxFields
+     *            The maximum number of fields
+     * @param maxNameLength
+     *            The maximum length of decoded field name in bytes
+     * @param maxSize
+     *            The maximum size of encoded body in bytes
+     */
+    public FormUrlDecoder(final int maxFields, final int maxNameLength, final long maxSize) {
+        this.maxFields = maxFields;
+        this.maxNameLength = maxNameLength;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Decode the whole stream
+     *
+     * @param in
+     *            The input stream
+     * @return this decoder
+     * @throws IOException
+     *             if read failed, the body is malformed or any limit is
+     *             exceeded
+     */
+    public FormUrlDecoder decode(final InputStream in) throws IOException {
+        final byte[] chunk = new byte[BUFFER_SIZE];
+        final ByteBuffer buffer = ByteBuffer.wrap(chunk);
+
+        for (int n; (n = in.read(chunk)) != -1;) {
+            buffer.clear().limit(n);
+            decode(buffer);
+        }
+
+        return this;
+    }
+
+    /**
+     * Decode the remaining bytes of the specified chunk
+     *
+     * @param chunk
+     *            A chunk of the encoded body
+     * @return this decoder
+     * @throws IOException
+     *             if the body is malformed or any limit is exceeded
+     */
+    public FormUrlDecoder decode(final ByteBuffer chunk) throws IOException {
+        this.size += chunk.remaining();
+        if (this.size > this.maxSize) {
+            throw new IOException("Form body exceeds " + this.maxSize + " bytes");
+        }
+
+        while (chunk.hasRemaining()) {
+            final byte b = chunk.get();
+
+            switch (this.state) {
+            case ESCAPE_HIGH:
+                this.high = hex(b);
+                this.state = ESCAPE_LOW;
+                continue;
+            case ESCAPE_LOW:
+                append((this.high << 4) | hex(b));
+                this.state = NORMAL;
+                continue;
+            }
+
+            switch (b) {
+            case '&':
+                endField();
+                break;
+            case '=':
+                if (null == this.name) {
+                    this.name = take();
+                } else {
+                    append(b);
+                }
+                break;
+            case '+':
+                append(' ');
+                break;
+            case '%':
+                this.state = ESCAPE_HIGH;
+                break;
+            default:
+                append(b);
+                break;
+            }
+        }
+
+        return this;
+    }
+
+    /**
+     * Complete the decoding
+     *
+     * @return the decoded form
+     * @throws IOException
+     *             if the body is truncated or any limit is exceeded
+     */
+    public FormBody finish() throws IOException {
+        if (NORMAL != this.state) {
+            throw new IOException("Incomplete percent-escape at the end of form body");
+        }
+
+        endField();
+        return this.builder.build();
+    }
+
+    private void endField() throws IOException {
+        if (null == this.name && 0 == this.count) {
+            return; // empty field
+        }
+
+        if (++this.fields > this.maxFields) {
+            throw new IOException("Form body has more than " + this.maxFields + " fields");
+        }
+
+        if (null == this.name) {
+            this.builder.add(take(), "");
+        } else {
+            this.builder.add(this.name, take());
+            this.name = null;
+        }
+    }
+
+    private void append(final int b) throws IOException {
+        if (null == this.name && this.count >= this.maxNameLength) {
+            throw new IOException("Form field name exceeds " + this.maxNameLength + " bytes");
+        }
+
+        if (this.count == this.buf.length) {
+            final byte[] buf = new byte[this.buf.length << 1];
+            System.arraycopy(this.buf, 0, buf, 0, this.count);
+            this.buf = buf;
+        }
+
+        this.buf[this.count++] = (byte) b;
+    }
+
+    private String take() {
+        final String s = new String(this.buf, 0, this.count, Constants.UTF_8);
+        this.count = 0;
+        return s;
+    }
+
+    private static int hex(final byte b) throws IOException {
+        if (b >= '0' && b <= '9') {
+            return b - '0';
+        }
+
+        if (b >= 'a' && b <= 'f') {
+            return b - 'a' + 10;
+        }
+
+        if (b >= 'A' && b <= 'F') {
+            return b - 'A' + 10;
+        }
+
+        throw new IOException("Malformed percent-escape in form body");
+    }
+
+}
@@ -0,0 +1,174 @@
+package com.sdklite.net.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * The {@code application/x-www-form-urlencoded} encoder in {@code UTF-8}, it
+ * produces the same output as {@link java.net.URLEncoder}, but the characters
+ * are encoded into a reusable buffer directly without any intermediate string
+ *
+ * @author johnsonlee
+ *
+ */
+final class FormUrlEncoder {
+
+    private static final byte[] HEX_DIGITS = "0123456789ABCDEF".getBytes();
+
+    private static final boolean[] UNRESERVED = new boolean[128];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            UNRESERVED[c] = true;
+        }
+        for (char c = 'A'; c <= 'Z'; c++) {
+            UNRESERVED[c] = true;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            UNRESERVED[c] = true;
+        }
+        UNRESERVED['-'] = true;
+        UNRESERVED['_'] = true;
+        UNRESERVED['.'] = true;
+        UNRESERVED['*'] = true;
+    }
+
+    /**
+     * Determine if the specified character can be written as is
+     *
+     * @param c
+     *            The character to determine
+     * @return true if the character doesn't need to be encoded
+     */
+    static boolean isUnreserved(final char c) {
+        return c < 0x80 && UNRESERVED[c];
+    }
+
+    /**
+     * Returns the length of the specified string after encoding
+     *
+     * @param s
+     *            The string to encode
+     * @return the number of encoded bytes
+     */
+    static long encodedLength(final String s) {
+        long length = 0;
+
+        for (int i = 0, n = s.length(); i < n; i++) {
+            final char c = s.charAt(i);
+
+            if (c == ' ' || isUnreserved(c)) {
+                length += 1;
+            } else if (c < 0x80) {
+                length += 3;
+            } else if (c < 0x800) {
+                length += 6;
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                length += 12;
+                i++;
+            } else if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+                length += 3; // unpaired surrogate is replaced with '?'
+            } else {
+                length += 9;
+            }
+        }
+
+        return length;
+    }
+
+    private final OutputStream out;
+
+    private final byte[] buf;
+
+    private int count;
+
+    /**
+     * Create an encoder which writes into the specified stream
+     *
+     * @param out
+     *            The output stream
+     * @param size
+     *            The buffer size
+     */
+    public FormUrlEncoder(final OutputStream out, final int size) {
+        this.out = out;
+        this.buf = new byte[Math.max(size, 16)];
+    }
+
+    /**
+     * Encode the specified string
+     *
+     * @param s
+     *            The string to encode
+     * @throws IOException
+     *             if write failed
+     */
+    public void encode(final String s) throws IOException {
+        for (int i = 0, n = s.length(); i < n; i++) {
+            final char c = s.charAt(i);
+
+            if (isUnreserved(c)) {
+                write(c);
+            } else if (c == ' ') {
+                write('+');
+            } else if (c < 0x80) {
+                escape(c);
+            } else if (c < 0x800) {
+                escape(0xc0 | (c >> 6));
+                escape(0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                final int cp = Character.toCodePoint(c, s.charAt(++i));
+                escape(0xf0 | (cp >> 18));
+                escape(0x80 | ((cp >> 12) & 0x3f));
+                escape(0x80 | ((cp >> 6) & 0x3f));
+                escape(0x80 | (cp & 0x3f));
+            } else if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+                escape('?'); // unpaired surrogate is replaced with '?'
+            } else {
+                escape(0xe0 | (c >> 12));
+                escape(0x80 | ((c >> 6) & 0x3f));
+                escape(0x80 | (c & 0x3f));
+            }
+        }
+    }
+
+    /**
+     * Write the specified byte as is
+     *
+     * @param b
+     *            The byte to write
+     * @throws IOException
+     *             if write failed
+     */
+    public void write(final int b) throws IOException {
+        if (this.count == this.buf.length) {
+            flush();
+        }
+
+        this.buf[this.count++] = (byte) b;
+    }
+
+    /**
+     * Write the buffered bytes into the underlying stream
+     *
+     * @throws IOException
+     *             if write failed
+     */
+    public void flush() throws IOException {
+        if (this.count > 0) {
+            this.out.write(this.buf, 0, this.count);
+            this.count = 0;
+        }
+    }
+
+    private void escape(final int b) throws IOException {
+        if (this.count + 3 > this.buf.length) {
+            flush();
+        }
+
+        this.buf[this.count++] = '%';
+        this.buf[this.count++] = HEX_DIGITS[(b >> 4) & 0xf];
+        this.buf[this.count++] = HEX_DIGITS[b & 0xf];
+    }
+
+}
@@ -0,0 +1,135 @@
+package com.sdklite.net.http;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The immutable open addressing index of HTTP headers keyed by the case-folded
+ * hash of header name
+ *
+ * <p>
+ * The headers of each distinct name are grouped in order of occurrence when
+ * the index is built, so that the lookups neither scan the headers nor
+ * allocate any object.
+ * </p>
+ *
+ * @author johnsonlee
+ *
+ */
+final class HeaderIndex {
+
+    private final String[] names;
+
+    private final List<HttpHeader>[] groups;
+
+    private final int mask;
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    HeaderIndex(final List<HttpHeader> headers) {
+        int capacity = 8;
+        while (capacity < headers.size() * 2) {
+            capacity <<= 1;
+        }
+
+        this.names = new String[capacity];
+        this.groups = new List[capacity];
+        this.mask = capacity - 1;
+
+        for (final HttpHeader header : headers) {
+            final String name = header.getName();
+            if (null == name) {
+                continue;
+            }
+
+            final int i = slot(name, HttpHeaderName.hash(name));
+            if (null == this.names[i]) {
+                this.names[i] = name;
+                this.groups[i] = new ArrayList<HttpHeader>(1);
+            }
+            this.groups[i].add(header);
+        }
+
+        for (int i = 0; i < capacity; i++) {
+            if (null != this.groups[i]) {
+                this.groups[i] = Collections.unmodifiableList(this.groups[i]);
+            }
+        }
+    }
+
+    /**
+     * Returns the value of the first header with the specified name
+     *
+     * @param name
+     *            The header name
+     * @return the header value or null if absent
+     */
+    String get(final String name) {
+        return null != name ? value(slot(name, HttpHeaderName.hash(name))) : null;
+    }
+
+    /**
+     * Returns the value of the first header with the specified name
+     *
+     * @param name
+     *            The header name
+     * @return the header value or null if absent
+     */
+    String get(final HttpHeaderName name) {
+        return value(slot(name.getName(), name.getHash()));
+    }
+
+    /**
+     * Returns the headers with the specified name in order of occurrence
+     *
+     * @param name
+     *            The header name
+     * @return the headers or an empty list if absent
+     */
+    List<HttpHeader> getAll(final String name) {
+        if (null == name) {
+            return Collections.emptyList();
+        }
+
+        return group(slot(name, HttpHeaderName.hash(name)));
+    }
+
+    /**
+     * Returns the headers with the specified name in order of occurrence
+     *
+     * @param name
+     *            The header name
+     * @return the headers or an empty list if absent
+     */
+    List<HttpHeader> getAll(final HttpHeaderName name) {
+        return group(slot(name.getName(), name.getHash()));
+    }
+
+    /**
+     * Returns the value of the first header in slot, the value is read on
+     * lookup as it might be computed on demand
+     */
+    private String value(final int slot) {
+        final List<HttpHeader> group = this.groups[slot];
+        return null != group ? group.get(0).getValue() : null;
+    }
+
+    private List<HttpHeader> group(final int slot) {
+        final List<HttpHeader> group = this.groups[slot];
+        return null != group ? group : Collections.<HttpHeader>emptyList();
+    }
+
+    /**
+     * Returns the slot of the specified name, or the empty slot where it
+     * should be
+     */
+    private int slot(final String name, final int hash) {
+        for (int i = hash & this.mask;; i = (i + 1) & this.mask) {
+            final String key = this.names[i];
+            if (null == key || key == name || key.equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+    }
+
+}
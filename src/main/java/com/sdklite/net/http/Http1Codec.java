@@ -0,0 +1,576 @@
+package com.sdklite.net.http;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+
+/**
+ * The HTTP/1.1 message codec as defined in
+ * <a href="https://tools.ietf.org/html/rfc7230#section-3">RFC 7230</a>
+ *
+ * <p>
+ * The start line and headers are encoded into a reusable direct buffer, the
+ * bytes of methods, protocols and standard header names are prebuilt. The
+ * start lines are decoded by switching on bytes without splitting, and the
+ * headers are decoded by {@link HttpHeaderParser}, the message could be fed
+ * in chunks as they are read from network. The entity is not covered by this
+ * codec, except that the entity of unknown length is framed by the channel
+ * of {@link #newChunkedChannel(WritableByteChannel)}.
+ * </p>
+ *
+ * <p>
+ * This codec is not thread safe.
+ * </p>
+ *
+ * @author johnsonlee
+ *
+ */
+public class Http1Codec {
+
+    public static final String HTTP_1_0 = "HTTP/1.0";
+
+    public static final String HTTP_1_1 = "HTTP/1.1";
+
+    /**
+     * The maximum length of start line in bytes
+     */
+    public static final int MAX_START_LINE_LENGTH = 8 * 1024;
+
+    private static final String OK = "OK";
+
+    private static final byte[] CR_LF = { '\r', '\n' };
+
+    private static final byte[] COLON_SPACE = { ':', ' ' };
+
+    private static final byte[] SP_HTTP_1_1_CR_LF = { ' ', 'H', 'T', 'T', 'P', '/', '1', '.', '1', '\r', '\n' };
+
+    private static final byte[] HTTP_1_1_SP = { 'H', 'T', 'T', 'P', '/', '1', '.', '1', ' ' };
+
+    private static final byte[] CHUNKED = { 'c', 'h', 'u', 'n', 'k', 'e', 'd' };
+
+    private static final byte[][] METHODS = new byte[HttpMethod.values().length][];
+
+    static {
+        for (final HttpMethod method : HttpMethod.values()) {
+            METHODS[method.ordinal()] = method.name().getBytes(Constants.US_ASCII);
+        }
+    }
+
+    private static final int BUFFER_SIZE = 4 * 1024;
+
+    /**
+     * The encoding buffer which is allocated on demand, so that the codecs
+     * used only for decoding don't hold direct memory
+     */
+    private ByteBuffer buffer;
+
+    private final HttpHeaderParser headerParser;
+
+    private byte[] line = new byte[256];
+
+    private int lineLength;
+
+    private HttpMessage.Builder builder;
+
+    private String target;
+
+    /**
+     * Create an instance with the default limit of header block
+     */
+    public Http1Codec() {
+        this(HttpHeaderParser.DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Create an instance with the specified limit of header block
+     *
+     * @param maxHeaderSize
+     *            The maximum size of header block in bytes
+     */
+    public Http1Codec(final int maxHeaderSize) {
+        this.headerParser = new HttpHeaderParser(maxHeaderSize);
+    }
+
+    /**
+     * Encode the request line and headers, the {@code Host} header and the
+     * entity headers are added if absent, the absent method is encoded as
+     * {@code GET}
+     *
+     * @param request
+     *            The HTTP request
+     * @return the buffer ready for writing, which is reused by the next
+     *         encoding
+     * @throws IOException
+     *             if the content length of entity could not be determined
+     */
+    public ByteBuffer encode(final HttpRequest request) throws IOException {
+        final HttpMethod method = null != request.getMethod() ? request.getMethod() : HttpMethod.GET;
+        final String url = request.getUrl();
+        final int schemeEnd = url.indexOf("://");
+        final int authorityStart = schemeEnd < 0 ? -1 : schemeEnd + 3;
+        final int fragment = url.indexOf('#');
+        final int targetEnd = fragment < 0 ? url.length() : fragment;
+        int targetStart = authorityStart < 0 ? 0 : targetEnd;
+
+        for (int i = Math.max(0, authorityStart); i < targetEnd && targetStart == targetEnd; i++) {
+            final char c = url.charAt(i);
+            if (c == '/' || c == '?') {
+                targetStart = i;
+            }
+        }
+
+        clear();
+        put(METHODS[method.ordinal()]);
+        put((byte) ' ');
+        if (targetStart == targetEnd || url.charAt(targetStart) == '?') {
+            put((byte) '/');
+        }
+        put(url, targetStart, targetEnd);
+        put(SP_HTTP_1_1_CR_LF);
+
+        if (authorityStart >= 0 && null == request.getHeader(HttpHeaderName.HOST)) {
+            final int at = url.lastIndexOf('@', targetStart - 1);
+            putHeader(HttpHeaderName.HOST.getBytes(), url, Math.max(authorityStart, at + 1), targetStart);
+        }
+
+        putHeaders(request.getHeaders());
+        putEntityHeaders(request, request.getEntity(), method.requiresRequestBody());
+        put(CR_LF);
+        this.buffer.flip();
+        return this.buffer;
+    }
+
+    /**
+     * Returns the channel which encodes the entity written into it with the
+     * chunked transfer coding, the entity of unknown length must be written
+     * through it as {@code Transfer-Encoding: chunked} is added by
+     * {@link #encode(HttpRequest)} and {@link #encode(HttpResponse)}. Closing
+     * the returned channel writes the last chunk and leaves the specified
+     * channel open.
+     *
+     * @param channel
+     *            The channel in blocking mode where the message is written
+     * @return the chunked channel
+     */
+    public static WritableByteChannel newChunkedChannel(final WritableByteChannel channel) {
+        return new ChunkedChannel(channel);
+    }
+
+    /**
+     * Encode the status line and headers, the entity headers are added if
+     * absent
+     *
+     * @param response
+     *            The HTTP response
+     * @return the buffer ready for writing, which is reused by the next
+     *         encoding
+     * @throws IOException
+     *             if the content length of entity could not be determined
+     */
+    public ByteBuffer encode(final HttpResponse response) throws IOException {
+        final int status = response.getStatusCode();
+        if (status < 100 || status > 999) {
+            throw new IllegalArgumentException("Invalid status code " + status);
+        }
+
+        clear();
+        put(HTTP_1_1_SP);
+        put((byte) ('0' + status / 100));
+        put((byte) ('0' + status / 10 % 10));
+        put((byte) ('0' + status % 10));
+        put((byte) ' ');
+
+        final String reason = response.getReasonPhrase();
+        if (null != reason) {
+            put(reason, 0, reason.length());
+        }
+
+        put(CR_LF);
+        putHeaders(response.getHeaders());
+        putEntityHeaders(response, response.getEntity(), false);
+        put(CR_LF);
+        this.buffer.flip();
+        return this.buffer;
+    }
+
+    /**
+     * Decode the request line and headers of the remaining bytes of the
+     * specified chunk, the bytes after the header block are left in the chunk
+     *
+     * <p>
+     * The URL of decoded request is the request target, which is prefixed with
+     * {@code http://} and the {@code Host} header if the target is in origin
+     * form.
+     * </p>
+     *
+     * @param chunk
+     *            A chunk of the request
+     * @return the decoded request without entity, or null if more bytes are
+     *         required
+     * @throws IOException
+     *             if the request is malformed
+     */
+    public HttpRequest decodeRequest(final ByteBuffer chunk) throws IOException {
+        if (null == this.builder) {
+            if (!readLine(chunk)) {
+                return null;
+            }
+
+            this.builder = decodeRequestLine(this.line, this.lineLength);
+        } else if (!(this.builder instanceof HttpRequest.Builder)) {
+            throw new IllegalStateException("Decoding response in progress");
+        }
+
+        if (!this.headerParser.parse(chunk)) {
+            return null;
+        }
+
+        final HttpRequest.Builder builder = (HttpRequest.Builder) this.builder;
+        final List<HttpHeader> headers = this.headerParser.getHeaders();
+        builder.addHeaders(headers);
+
+        if (this.target.startsWith("/")) {
+            for (final HttpHeader header : headers) {
+                if (HttpHeaderName.HOST == HttpHeaderName.lookup(header.getName())) {
+                    builder.setUrl("http://" + header.getValue() + this.target);
+                    break;
+                }
+            }
+        }
+
+        reset();
+        return builder.build();
+    }
+
+    /**
+     * Decode the status line and headers of the remaining bytes of the
+     * specified chunk, the bytes after the header block are left in the chunk
+     *
+     * @param chunk
+     *            A chunk of the response
+     * @return the decoded response without entity, or null if more bytes are
+     *         required
+     * @throws IOException
+     *             if the response is malformed
+     */
+    public HttpResponse decodeResponse(final ByteBuffer chunk) throws IOException {
+        if (null == this.builder) {
+            if (!readLine(chunk)) {
+                return null;
+            }
+
+            this.builder = decodeStatusLine(this.line, this.lineLength);
+        } else if (!(this.builder instanceof HttpResponse.Builder)) {
+            throw new IllegalStateException("Decoding request in progress");
+        }
+
+        if (!this.headerParser.parse(chunk)) {
+            return null;
+        }
+
+        final HttpResponse.Builder builder = (HttpResponse.Builder) this.builder;
+        builder.addHeaders(this.headerParser.getHeaders());
+        reset();
+        return builder.build();
+    }
+
+    /**
+     * Discard the decoding state
+     */
+    public void reset() {
+        this.builder = null;
+        this.lineLength = 0;
+        this.headerParser.reset();
+    }
+
+    /**
+     * Returns the HTTP method of the specified bytes
+     *
+     * @param buf
+     *            The buffer contains the method
+     * @param offset
+     *            The offset of method
+     * @param length
+     *            The length of method
+     * @return the HTTP method or null if unknown
+     */
+    static HttpMethod decodeMethod(final byte[] buf, final int offset, final int length) {
+        if (length < 3) {
+            return null;
+        }
+
+        final HttpMethod method;
+
+        switch (buf[offset]) {
+        case 'G':
+            method = HttpMethod.GET;
+            break;
+        case 'H':
+            method = HttpMethod.HEAD;
+            break;
+        case 'D':
+            method = HttpMethod.DELETE;
+            break;
+        case 'O':
+            method = HttpMethod.OPTIONS;
+            break;
+        case 'R':
+            method = HttpMethod.REPORT;
+            break;
+        case 'L':
+            method = HttpMethod.LOCK;
+            break;
+        case 'U':
+            method = HttpMethod.UNLOCK;
+            break;
+        case 'M':
+            method = 'O' == buf[offset + 1] ? HttpMethod.MOVE : HttpMethod.MKCOL;
+            break;
+        case 'P':
+            switch (length) {
+            case 3:
+                method = HttpMethod.PUT;
+                break;
+            case 4:
+                method = HttpMethod.POST;
+                break;
+            case 5:
+                method = HttpMethod.PATCH;
+                break;
+            case 8:
+                method = HttpMethod.PROPFIND;
+                break;
+            case 9:
+                method = HttpMethod.PROPPATCH;
+                break;
+            default:
+                return null;
+            }
+            break;
+        default:
+            return null;
+        }
+
+        return matches(buf, offset, length, METHODS[method.ordinal()]) ? method : null;
+    }
+
+    private HttpRequest.Builder decodeRequestLine(final byte[] line, final int length) throws IOException {
+        int sp1 = 0;
+        while (sp1 < length && ' ' != line[sp1]) {
+            sp1++;
+        }
+
+        int sp2 = length - 1;
+        while (sp2 > sp1 && ' ' != line[sp2]) {
+            sp2--;
+        }
+
+        if (sp1 >= length || sp2 <= sp1 + 1) {
+            throw new IOException("Malformed request line");
+        }
+
+        final HttpMethod method = decodeMethod(line, 0, sp1);
+        if (null == method) {
+            throw new IOException("Unsupported method " + new String(line, 0, sp1, Constants.ISO_8859_1));
+        }
+
+        if (null == decodeProtocol(line, sp2 + 1, length - sp2 - 1)) {
+            throw new IOException("Unsupported protocol " + new String(line, sp2 + 1, length - sp2 - 1, Constants.ISO_8859_1));
+        }
+
+        this.target = new String(line, sp1 + 1, sp2 - sp1 - 1, Constants.ISO_8859_1);
+        return new HttpRequest.Builder().setMethod(method).setUrl(this.target);
+    }
+
+    private static HttpResponse.Builder decodeStatusLine(final byte[] line, final int length) throws IOException {
+        // HTTP/1.1 200 [reason]
+        final String protocol = length >= 12 ? decodeProtocol(line, 0, 8) : null;
+        if (null == protocol || ' ' != line[8] || (length > 12 && ' ' != line[12])) {
+            throw new IOException("Malformed status line");
+        }
+
+        int status = 0;
+        for (int i = 9; i < 12; i++) {
+            final int digit = line[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new IOException("Malformed status code");
+            }
+            status = status * 10 + digit;
+        }
+
+        final String reason;
+        if (length <= 13) {
+            reason = "";
+        } else if (length == 15 && 'O' == line[13] && 'K' == line[14]) {
+            reason = OK;
+        } else {
+            reason = new String(line, 13, length - 13, Constants.ISO_8859_1);
+        }
+
+        return new HttpResponse.Builder().setProtocol(protocol).setStatusCode(status).setReasonPhrase(reason);
+    }
+
+    private static String decodeProtocol(final byte[] buf, final int offset, final int length) {
+        if (8 != length || 'H' != buf[offset] || 'T' != buf[offset + 1] || 'T' != buf[offset + 2] || 'P' != buf[offset + 3]
+                || '/' != buf[offset + 4] || '1' != buf[offset + 5] || '.' != buf[offset + 6]) {
+            return null;
+        }
+
+        switch (buf[offset + 7]) {
+        case '1':
+            return HTTP_1_1;
+        case '0':
+            return HTTP_1_0;
+        default:
+            return null;
+        }
+    }
+
+    private static boolean matches(final byte[] buf, final int offset, final int length, final byte[] expected) {
+        if (length != expected.length) {
+            return false;
+        }
+
+        for (int i = 0; i < length; i++) {
+            if (buf[offset + i] != expected[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Read the start line into the line buffer without the line terminator
+     */
+    private boolean readLine(final ByteBuffer chunk) throws IOException {
+        while (chunk.hasRemaining()) {
+            final byte b = chunk.get();
+
+            if ('\n' == b) {
+                if (this.lineLength > 0 && '\r' == this.line[this.lineLength - 1]) {
+                    this.lineLength--;
+                }
+
+                if (0 == this.lineLength) {
+                    continue; // ignore the leading empty lines
+                }
+
+                return true;
+            }
+
+            if (this.lineLength >= MAX_START_LINE_LENGTH) {
+                throw new IOException("Start line exceeds " + MAX_START_LINE_LENGTH + " bytes");
+            }
+
+            if (this.lineLength == this.line.length) {
+                final byte[] line = new byte[this.line.length << 1];
+                System.arraycopy(this.line, 0, line, 0, this.lineLength);
+                this.line = line;
+            }
+
+            this.line[this.lineLength++] = b;
+        }
+
+        return false;
+    }
+
+    private void putHeaders(final List<HttpHeader> headers) {
+        for (final HttpHeader header : headers) {
+            final String name = header.getName();
+            final String value = String.valueOf(header.getValue());
+            final HttpHeaderName registered = HttpHeaderName.lookup(name);
+
+            if (null != registered) {
+                putHeader(registered.getBytes(), value, 0, value.length());
+            } else {
+                put(name, 0, name.length());
+                put(COLON_SPACE);
+                put(value, 0, value.length());
+                put(CR_LF);
+            }
+        }
+    }
+
+    private void putEntityHeaders(final HttpMessage message, final HttpEntity entity, final boolean requiresBody) throws IOException {
+        final boolean hasLength = null != message.getHeader(HttpHeaderName.CONTENT_LENGTH) || null != message.getHeader(HttpHeaderName.TRANSFER_ENCODING);
+
+        if (null == entity) {
+            if (requiresBody && !hasLength) {
+                putHeader(HttpHeaderName.CONTENT_LENGTH.getBytes(), "0", 0, 1);
+            }
+            return;
+        }
+
+        if (null != entity.getContentType() && null == message.getHeader(HttpHeaderName.CONTENT_TYPE)) {
+            final String contentType = entity.getContentType().toString();
+            putHeader(HttpHeaderName.CONTENT_TYPE.getBytes(), contentType, 0, contentType.length());
+        }
+
+        if (!hasLength) {
+            final long length = entity.getContentLength();
+
+            if (length >= 0) {
+                final String s = Long.toString(length);
+                putHeader(HttpHeaderName.CONTENT_LENGTH.getBytes(), s, 0, s.length());
+            } else {
+                put(HttpHeaderName.TRANSFER_ENCODING.getBytes());
+                put(COLON_SPACE);
+                put(CHUNKED);
+                put(CR_LF);
+            }
+        }
+    }
+
+    private void putHeader(final byte[] name, final String value, final int start, final int end) {
+        put(name);
+        put(COLON_SPACE);
+        put(value, start, end);
+        put(CR_LF);
+    }
+
+    private void clear() {
+        if (null == this.buffer) {
+            this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        }
+
+        this.buffer.clear();
+    }
+
+    private void put(final byte b) {
+        ensureRemaining(1);
+        this.buffer.put(b);
+    }
+
+    private void put(final byte[] bytes) {
+        ensureRemaining(bytes.length);
+        this.buffer.put(bytes);
+    }
+
+    /**
+     * Write the characters in {@code ISO-8859-1}, the line terminators are
+     * rejected to prevent header injection
+     */
+    private void put(final String s, final int start, final int end) {
+        ensureRemaining(end - start);
+
+        for (int i = start; i < end; i++) {
+            final char c = s.charAt(i);
+            if (c == '\r' || c == '\n') {
+                throw new IllegalArgumentException("Line terminator is not allowed: " + s);
+            }
+            this.buffer.put(c > 0xff ? (byte) '?' : (byte) c);
+        }
+    }
+
+    private void ensureRemaining(final int n) {
+        if (this.buffer.remaining() < n) {
+            final ByteBuffer buffer = ByteBuffer.allocateDirect(Math.max(this.buffer.capacity() << 1, this.buffer.position() + n));
+            this.buffer.flip();
+            buffer.put(this.buffer);
+            this.buffer = buffer;
+        }
+    }
+
+}
@@ -7,6 +7,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 
 import com.sdklite.io.IOUtil;
@@ -75,6 +76,11 @@ public abstract class HttpBody implements HttpEntity {
             public InputStream getContent() throws FileNotFoundException {
                 return new FileInputStream(file);
             }
+
+            @Override
+            public void writeTo(final WritableByteChannel channel) throws IOException {
+                FileTransfer.transferTo(file, channel);
+            }
         };
     }
 
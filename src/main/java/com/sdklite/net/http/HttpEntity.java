@@ -3,6 +3,8 @@ package com.sdklite.net.http;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 
 import com.sdklite.net.MimeType;
@@ -45,4 +47,20 @@ public interface HttpEntity {
      */
     public void writeTo(final OutputStream out) throws IOException;
 
+    /**
+     * Write this entity into {@code channel}, the content is written through
+     * {@link #writeTo(OutputStream)} by default
+     * 
+     * @param channel
+     *            The channel in blocking mode
+     * @throws IOException
+     *             if write failed, or the channel accepted no byte as it's
+     *             not in blocking mode
+     */
+    public default void writeTo(final WritableByteChannel channel) throws IOException {
+        final OutputStream out = Channels.newOutputStream(channel);
+        writeTo(out);
+        out.flush();
+    }
+
 }
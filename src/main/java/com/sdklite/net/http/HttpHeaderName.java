@@ -0,0 +1,317 @@
+package com.sdklite.net.http;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Represents the HTTP header name
+ *
+ * <p>
+ * The standard header names are registered as singletons, each of them has
+ * the precomputed lower case form, case-folded hash and {@code US-ASCII}
+ * bytes, so that the registered names are compared by identity, and the
+ * serializers write the bytes without encoding.
+ * </p>
+ *
+ * @author johnsonlee
+ *
+ */
+public final class HttpHeaderName {
+
+    private static final List<HttpHeaderName> REGISTRY = new ArrayList<HttpHeaderName>();
+
+    public static final HttpHeaderName ACCEPT = register("Accept");
+
+    public static final HttpHeaderName ACCEPT_CHARSET = register("Accept-Charset");
+
+    public static final HttpHeaderName ACCEPT_ENCODING = register("Accept-Encoding");
+
+    public static final HttpHeaderName ACCEPT_LANGUAGE = register("Accept-Language");
+
+    public static final HttpHeaderName ACCEPT_RANGES = register("Accept-Ranges");
+
+    public static final HttpHeaderName AGE = register("Age");
+
+    public static final HttpHeaderName ALLOW = register("Allow");
+
+    public static final HttpHeaderName AUTHORIZATION = register("Authorization");
+
+    public static final HttpHeaderName CACHE_CONTROL = register("Cache-Control");
+
+    public static final HttpHeaderName CONNECTION = register("Connection");
+
+    public static final HttpHeaderName CONTENT_DISPOSITION = register("Content-Disposition");
+
+    public static final HttpHeaderName CONTENT_ENCODING = register("Content-Encoding");
+
+    public static final HttpHeaderName CONTENT_LANGUAGE = register("Content-Language");
+
+    public static final HttpHeaderName CONTENT_LENGTH = register("Content-Length");
+
+    public static final HttpHeaderName CONTENT_LOCATION = register("Content-Location");
+
+    public static final HttpHeaderName CONTENT_RANGE = register("Content-Range");
+
+    public static final HttpHeaderName CONTENT_TRANSFER_ENCODING = register("Content-Transfer-Encoding");
+
+    public static final HttpHeaderName CONTENT_TYPE = register("Content-Type");
+
+    public static final HttpHeaderName COOKIE = register("Cookie");
+
+    public static final HttpHeaderName DATE = register("Date");
+
+    public static final HttpHeaderName ETAG = register("ETag");
+
+    public static final HttpHeaderName EXPECT = register("Expect");
+
+    public static final HttpHeaderName EXPIRES = register("Expires");
+
+    public static final HttpHeaderName HOST = register("Host");
+
+    public static final HttpHeaderName IF_MATCH = register("If-Match");
+
+    public static final HttpHeaderName IF_MODIFIED_SINCE = register("If-Modified-Since");
+
+    public static final HttpHeaderName IF_NONE_MATCH = register("If-None-Match");
+
+    public static final HttpHeaderName IF_RANGE = register("If-Range");
+
+    public static final HttpHeaderName IF_UNMODIFIED_SINCE = register("If-Unmodified-Since");
+
+    public static final HttpHeaderName KEEP_ALIVE = register("Keep-Alive");
+
+    public static final HttpHeaderName LAST_MODIFIED = register("Last-Modified");
+
+    public static final HttpHeaderName LOCATION = register("Location");
+
+    public static final HttpHeaderName ORIGIN = register("Origin");
+
+    public static final HttpHeaderName PRAGMA = register("Pragma");
+
+    public static final HttpHeaderName PROXY_AUTHENTICATE = register("Proxy-Authenticate");
+
+    public static final HttpHeaderName PROXY_AUTHORIZATION = register("Proxy-Authorization");
+
+    public static final HttpHeaderName RANGE = register("Range");
+
+    public static final HttpHeaderName REFERER = register("Referer");
+
+    public static final HttpHeaderName RETRY_AFTER = register("Retry-After");
+
+    public static final HttpHeaderName SERVER = register("Server");
+
+    public static final HttpHeaderName SET_COOKIE = register("Set-Cookie");
+
+    public static final HttpHeaderName TE = register("TE");
+
+    public static final HttpHeaderName TRAILER = register("Trailer");
+
+    public static final HttpHeaderName TRANSFER_ENCODING = register("Transfer-Encoding");
+
+    public static final HttpHeaderName UPGRADE = register("Upgrade");
+
+    public static final HttpHeaderName USER_AGENT = register("User-Agent");
+
+    public static final HttpHeaderName VARY = register("Vary");
+
+    public static final HttpHeaderName VIA = register("Via");
+
+    public static final HttpHeaderName WWW_AUTHENTICATE = register("WWW-Authenticate");
+
+    /**
+     * The open addressing table of registered names
+     */
+    private static final HttpHeaderName[] TABLE;
+
+    private static final int MASK;
+
+    static {
+        int capacity = 16;
+        while (capacity < REGISTRY.size() * 4) {
+            capacity <<= 1;
+        }
+
+        TABLE = new HttpHeaderName[capacity];
+        MASK = capacity - 1;
+
+        for (final HttpHeaderName name : REGISTRY) {
+            int i = name.hash & MASK;
+            while (null != TABLE[i]) {
+                i = (i + 1) & MASK;
+            }
+            TABLE[i] = name;
+        }
+    }
+
+    private final String name;
+
+    private final String lowerCase;
+
+    private final int hash;
+
+    private final byte[] bytes;
+
+    private HttpHeaderName(final String name) {
+        this.name = name;
+        this.lowerCase = name.toLowerCase(Locale.US);
+        this.hash = hash(name);
+        this.bytes = name.getBytes(Constants.US_ASCII);
+    }
+
+    private static HttpHeaderName register(final String name) {
+        final HttpHeaderName headerName = new HttpHeaderName(name);
+        REGISTRY.add(headerName);
+        return headerName;
+    }
+
+    /**
+     * Returns the registered header name, or a new instance if the specified
+     * name is not a standard one
+     *
+     * @param name
+     *            The header name
+     * @return an instance of {@link HttpHeaderName}
+     */
+    public static HttpHeaderName valueOf(final String name) {
+        final HttpHeaderName registered = lookup(name);
+        return null != registered ? registered : new HttpHeaderName(name);
+    }
+
+    /**
+     * Returns the registered header name without allocation
+     *
+     * @param name
+     *            The header name
+     * @return the registered header name or null if it's not a standard one
+     */
+    static HttpHeaderName lookup(final String name) {
+        if (null == name) {
+            return null;
+        }
+
+        for (int i = hash(name) & MASK;; i = (i + 1) & MASK) {
+            final HttpHeaderName registered = TABLE[i];
+            if (null == registered || registered.name == name || registered.name.equalsIgnoreCase(name)) {
+                return registered;
+            }
+        }
+    }
+
+    /**
+     * Returns the registered header name of the specified {@code US-ASCII}
+     * bytes without allocation
+     *
+     * @param buf
+     *            The buffer contains the header name
+     * @param offset
+     *            The offset of header name
+     * @param length
+     *            The length of header name
+     * @return the registered header name or null if it's not a standard one
+     */
+    static HttpHeaderName lookup(final byte[] buf, final int offset, final int length) {
+        int h = 0;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            h = 31 * h + toLowerCase(buf[i]);
+        }
+        h ^= h >>> 16;
+
+        for (int i = h & MASK;; i = (i + 1) & MASK) {
+            final HttpHeaderName registered = TABLE[i];
+            if (null == registered || registered.matches(buf, offset, length)) {
+                return registered;
+            }
+        }
+    }
+
+    /**
+     * Returns the case-folded hash of the specified header name
+     */
+    static int hash(final String s) {
+        int h = 0;
+        for (int i = 0, n = s.length(); i < n; i++) {
+            final char c = s.charAt(i);
+            h = 31 * h + (c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c);
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static int toLowerCase(final byte b) {
+        return b >= 'A' && b <= 'Z' ? b + ('a' - 'A') : b & 0xff;
+    }
+
+    /**
+     * Returns the header name
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Returns the header name in lower case
+     */
+    public String toLowerCase() {
+        return this.lowerCase;
+    }
+
+    /**
+     * Determine if the specified name equals to this name case-insensitively
+     *
+     * @param name
+     *            The header name
+     * @return true if matched
+     */
+    public boolean matches(final String name) {
+        return this.name == name || this.name.equalsIgnoreCase(name);
+    }
+
+    private boolean matches(final byte[] buf, final int offset, final int length) {
+        if (this.bytes.length != length) {
+            return false;
+        }
+
+        for (int i = 0; i < length; i++) {
+            if (toLowerCase(buf[offset + i]) != this.lowerCase.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the case-folded hash of the header name
+     */
+    int getHash() {
+        return this.hash;
+    }
+
+    /**
+     * Returns the {@code US-ASCII} bytes which is shared, the caller must not
+     * modify it
+     */
+    byte[] getBytes() {
+        return this.bytes;
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hash;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+
+        return obj instanceof HttpHeaderName && this.name.equalsIgnoreCase(((HttpHeaderName) obj).name);
+    }
+
+    @Override
+    public String toString() {
+        return this.name;
+    }
+
+}
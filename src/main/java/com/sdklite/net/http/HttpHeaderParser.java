@@ -0,0 +1,278 @@
+package com.sdklite.net.http;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The incremental parser of HTTP/1.1 header block as defined in
+ * <a href="https://tools.ietf.org/html/rfc7230#section-3.2">RFC 7230</a>
+ *
+ * <p>
+ * The header block is fed in chunks as they are read from network, the
+ * parsed headers keep the offsets of names and values, which are decoded on
+ * demand, and the standard header names are resolved to the registered
+ * {@link HttpHeaderName} without allocation. The obsolete line folding is
+ * rejected.
+ * </p>
+ *
+ * <p>
+ * This parser is not thread safe.
+ * </p>
+ *
+ * @author johnsonlee
+ *
+ */
+public class HttpHeaderParser {
+
+    /**
+     * The default maximum size of header block in bytes
+     */
+    public static final int DEFAULT_MAX_SIZE = 64 * 1024;
+
+    private final int maxSize;
+
+    private byte[] block = new byte[512];
+
+    private int length;
+
+    private int lineStart;
+
+    private int scanned;
+
+    private boolean complete;
+
+    private List<HttpHeader> headers = new ArrayList<HttpHeader>();
+
+    /**
+     * Create an instance with default limit
+     */
+    public HttpHeaderParser() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Create an instance with the specified limit
+     *
+     * @param maxSize
+     *            The maximum size of header block in bytes
+     */
+    public HttpHeaderParser(final int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Parse the complete header block without copying, the headers refer to
+     * the specified buffer which must not be modified while they're in use
+     *
+     * @param buf
+     *            The buffer contains the header block which is terminated by an
+     *            empty line
+     * @param offset
+     *            The offset of header block
+     * @param length
+     *            The length of buffer to be parsed
+     * @return the parsed headers
+     * @throws IOException
+     *             if the header block is malformed or incomplete
+     */
+    public static List<HttpHeader> parse(final byte[] buf, final int offset, final int length) throws IOException {
+        final List<HttpHeader> headers = new ArrayList<HttpHeader>();
+
+        for (int i = offset, lineStart = offset, end = offset + length; i < end; i++) {
+            if ('\n' == buf[i]) {
+                final int lineEnd = i > lineStart && '\r' == buf[i - 1] ? i - 1 : i;
+                if (lineEnd == lineStart) {
+                    return Collections.unmodifiableList(headers);
+                }
+
+                headers.add(parseLine(buf, lineStart, lineEnd));
+                lineStart = i + 1;
+            }
+        }
+
+        throw new IOException("Incomplete header block");
+    }
+
+    /**
+     * Parse the remaining bytes of the specified chunk, the bytes after the
+     * header block are left in the buffer
+     *
+     * @param chunk
+     *            A chunk of the header block
+     * @return true if the header block is complete
+     * @throws IOException
+     *             if the header block is malformed or too large
+     */
+    public boolean parse(final ByteBuffer chunk) throws IOException {
+        if (this.complete) {
+            return true;
+        }
+
+        final int n = Math.min(chunk.remaining(), this.maxSize - this.length);
+        if (n <= 0 && chunk.hasRemaining()) {
+            throw new IOException("Header block exceeds " + this.maxSize + " bytes");
+        }
+
+        ensureCapacity(this.length + n);
+        chunk.get(this.block, this.length, n);
+        this.length += n;
+
+        for (; this.scanned < this.length; this.scanned++) {
+            if ('\n' != this.block[this.scanned]) {
+                continue;
+            }
+
+            final int i = this.scanned;
+            final int lineStart = this.lineStart;
+            final int lineEnd = i > lineStart && '\r' == this.block[i - 1] ? i - 1 : i;
+            this.lineStart = i + 1;
+
+            if (lineEnd == lineStart) {
+                // give the bytes after the header block back to the chunk
+                chunk.position(chunk.position() - (this.length - this.lineStart));
+                this.length = this.scanned = this.lineStart;
+                this.complete = true;
+                this.headers = Collections.unmodifiableList(this.headers);
+                return true;
+            }
+
+            this.headers.add(parseLine(this.block, lineStart, lineEnd));
+        }
+
+        if (this.length >= this.maxSize) {
+            throw new IOException("Header block exceeds " + this.maxSize + " bytes");
+        }
+
+        return false;
+    }
+
+    /**
+     * Determine if the header block is complete
+     */
+    public boolean isComplete() {
+        return this.complete;
+    }
+
+    /**
+     * Returns the parsed headers in order of occurrence
+     */
+    public List<HttpHeader> getHeaders() {
+        return this.complete ? this.headers : Collections.unmodifiableList(new ArrayList<HttpHeader>(this.headers));
+    }
+
+    /**
+     * Reset this parser for the next header block
+     */
+    public void reset() {
+        this.block = new byte[this.block.length];
+        this.length = 0;
+        this.lineStart = 0;
+        this.scanned = 0;
+        this.complete = false;
+        this.headers = new ArrayList<HttpHeader>();
+    }
+
+    private void ensureCapacity(final int capacity) {
+        if (capacity > this.block.length) {
+            final byte[] block = new byte[Math.max(capacity, this.block.length << 1)];
+            System.arraycopy(this.block, 0, block, 0, this.length);
+            this.block = block;
+        }
+    }
+
+    private static HttpHeader parseLine(final byte[] buf, final int start, final int end) throws IOException {
+        if (' ' == buf[start] || '\t' == buf[start]) {
+            throw new IOException("Obsolete line folding is not supported");
+        }
+
+        int colon = start;
+        while (colon < end && ':' != buf[colon]) {
+            if (!isTokenChar(buf[colon])) {
+                throw new IOException("Malformed header name");
+            }
+            colon++;
+        }
+
+        if (colon == start || colon == end) {
+            throw new IOException("Malformed header");
+        }
+
+        int valueStart = colon + 1;
+        while (valueStart < end && (' ' == buf[valueStart] || '\t' == buf[valueStart])) {
+            valueStart++;
+        }
+
+        int valueEnd = end;
+        while (valueEnd > valueStart && (' ' == buf[valueEnd - 1] || '\t' == buf[valueEnd - 1])) {
+            valueEnd--;
+        }
+
+        return new ParsedHeader(buf, start, colon - start, valueStart, valueEnd - valueStart);
+    }
+
+    private static boolean isTokenChar(final byte b) {
+        switch (b) {
+        case '(': case ')': case ',': case '/': case ':': case ';': case '<': case '=': case '>':
+        case '?': case '@': case '[': case '\\': case ']': case '{': case '}': case '"':
+            return false;
+        default:
+            return b > 0x20 && b < 0x7f;
+        }
+    }
+
+    /**
+     * The header refers to the offsets of name and value
+     */
+    private static final class ParsedHeader implements HttpHeader {
+
+        private final byte[] buf;
+
+        private final int nameOffset;
+
+        private final int nameLength;
+
+        private final int valueOffset;
+
+        private final int valueLength;
+
+        private String name;
+
+        private String value;
+
+        ParsedHeader(final byte[] buf, final int nameOffset, final int nameLength, final int valueOffset, final int valueLength) {
+            this.buf = buf;
+            this.nameOffset = nameOffset;
+            this.nameLength = nameLength;
+            this.valueOffset = valueOffset;
+            this.valueLength = valueLength;
+        }
+
+        @Override
+        public String getName() {
+            if (null == this.name) {
+                final HttpHeaderName registered = HttpHeaderName.lookup(this.buf, this.nameOffset, this.nameLength);
+                this.name = null != registered ? registered.getName() : new String(this.buf, this.nameOffset, this.nameLength, Constants.ISO_8859_1);
+            }
+
+            return this.name;
+        }
+
+        @Override
+        public String getValue() {
+            if (null == this.value) {
+                this.value = new String(this.buf, this.valueOffset, this.valueLength, Constants.ISO_8859_1);
+            }
+
+            return this.value;
+        }
+
+        @Override
+        public String toString() {
+            return getName() + ": " + getValue();
+        }
+    }
+
+}
@@ -1,11 +1,8 @@
 package com.sdklite.net.http;
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
 
 /**
  * Standard HTTP headers
@@ -14,7 +11,7 @@ import java.util.TreeMap;
  */
 public abstract class HttpHeaders {
 
-    private static final Comparator<String> HEADER_NAME_COMPARATOR = new Comparator<String>() {
+    static final Comparator<String> HEADER_NAME_COMPARATOR = new Comparator<String>() {
         @Override
         public int compare(final String a, final String b) {
             return a == b ? 0 : (null == a ? -1 : (null == b ? 1 : String.CASE_INSENSITIVE_ORDER.compare(a, b)));
@@ -29,18 +26,7 @@ public abstract class HttpHeaders {
      * @return all headers
      */
     public static Map<String, List<String>> getHeaders(final HttpMessage message) {
-        final Map<String, List<String>> map = new TreeMap<String, List<String>>(HEADER_NAME_COMPARATOR);
-
-        for (final HttpHeader header : message.getHeaders()) {
-            final String name = header.getName();
-            final String value = header.getValue();
-            final List<String> values = map.containsKey(name) ? map.get(name) : new ArrayList<String>();
-
-            values.add(value);
-            map.put(name, values);
-        }
-
-        return Collections.unmodifiableMap(map);
+        return message.getHeaderMap();
     }
 
     /**
@@ -51,7 +37,7 @@ public abstract class HttpHeaders {
      * @return the content length
      */
     public static long getContentLength(final HttpMessage message) {
-        final String contentLength = message.getHeader("Content-Length");
+        final String contentLength = message.getHeader(HttpHeaderName.CONTENT_LENGTH);
         if (null == contentLength) {
             return -1;
         }
@@ -4,6 +4,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * Represents the HTTP message
@@ -17,9 +19,14 @@ public abstract class HttpMessage {
 
     protected final HttpEntity entity;
 
+    private final HeaderIndex index;
+
+    private volatile Map<String, List<String>> headerMap;
+
     protected HttpMessage(final Builder builder) {
-        this.headers = Collections.unmodifiableList(builder.headers);
+        this.headers = Collections.unmodifiableList(new ArrayList<HttpHeader>(builder.headers));
         this.entity = builder.entity;
+        this.index = new HeaderIndex(this.headers);
     }
 
     public List<HttpHeader> getHeaders() {
@@ -27,25 +34,46 @@ public abstract class HttpMessage {
     }
 
     public List<HttpHeader> getHeaders(final String name) {
-        final List<HttpHeader> headers = new ArrayList<HttpHeader>();
+        return this.index.getAll(name);
+    }
 
-        for (final HttpHeader header : this.headers) {
-            if (header.getName().equalsIgnoreCase(name)) {
-                headers.add(header);
-            }
-        }
+    public String getHeader(final String name) {
+        return this.index.get(name);
+    }
 
-        return Collections.unmodifiableList(headers);
+    public List<HttpHeader> getHeaders(final HttpHeaderName name) {
+        return this.index.getAll(name);
     }
 
-    public String getHeader(final String name) {
-        for (final HttpHeader header : this.headers) {
-            if (header.getName().equalsIgnoreCase(name)) {
-                return header.getValue();
+    public String getHeader(final HttpHeaderName name) {
+        return this.index.get(name);
+    }
+
+    /**
+     * Returns the values of each header name, the map is built once on demand
+     */
+    Map<String, List<String>> getHeaderMap() {
+        Map<String, List<String>> map = this.headerMap;
+
+        if (null == map) {
+            final Map<String, List<String>> values = new TreeMap<String, List<String>>(HttpHeaders.HEADER_NAME_COMPARATOR);
+
+            for (final HttpHeader header : this.headers) {
+                List<String> list = values.get(header.getName());
+                if (null == list) {
+                    values.put(header.getName(), list = new ArrayList<String>(1));
+                }
+                list.add(header.getValue());
             }
+
+            for (final Map.Entry<String, List<String>> entry : values.entrySet()) {
+                entry.setValue(Collections.unmodifiableList(entry.getValue()));
+            }
+
+            this.headerMap = map = Collections.unmodifiableMap(values);
         }
 
-        return null;
+        return map;
     }
 
     public HttpEntity getEntity() {
@@ -71,6 +71,8 @@ public class HttpRequest extends HttpMessage {
 
         private Builder(final HttpRequest request) {
             super(request);
+            this.url = request.url;
+            this.method = request.method;
         }
 
         /**
@@ -82,6 +82,9 @@ public class HttpResponse extends HttpMessage {
 
         private Builder(final HttpResponse response) {
             super(response);
+            this.protocol = response.protocol;
+            this.statusCode = response.statusCode;
+            this.reasonPhrase = response.reasonPhrase;
         }
 
         @Override
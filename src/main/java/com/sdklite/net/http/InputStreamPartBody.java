@@ -1,5 +1,6 @@
 package com.sdklite.net.http;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
@@ -10,28 +11,51 @@ class InputStreamPartBody extends PartBody {
     private final InputStream stream;
 
     public InputStreamPartBody(final InputStream stream) {
-        this(stream, Constants.APPLICATION_OCTET_STREAM);
+        this(stream, null);
     }
 
     public InputStreamPartBody(final InputStream stream, MimeType contentType) {
         this(stream, contentType, null);
     }
 
+    /**
+     * Create an instance, the content type is detected from the leading bytes
+     * of stream on demand if both of {@code contentType} and {@code filename}
+     * are absent
+     */
     public InputStreamPartBody(final InputStream stream, final MimeType contentType, String filename) {
         super(contentType, filename);
-        this.stream = stream;
+        this.stream = null != contentType || null != filename || stream.markSupported() ? stream : new BufferedInputStream(stream);
     }
 
+    /**
+     * Sniff the leading bytes of stream if the filename is absent, the stream
+     * is reset to the original position after detection
+     */
+    @Override
+    MimeType detectContentType() throws IOException {
+        return null != getFilename() ? Constants.APPLICATION_OCTET_STREAM : MimeType.sniff(this.stream, Constants.APPLICATION_OCTET_STREAM);
+    }
+
+    /**
+     * Returns the stream after the content type has been detected, so that
+     * the leading bytes are not consumed before sniffing
+     */
     @Override
     public InputStream getContent() throws IOException {
+        resolveContentType();
         return this.stream;
     }
 
+    /**
+     * Returns -1 as the length of stream is unknown until it's been consumed,
+     * {@link InputStream#available()} is just an estimate
+     */
     @Override
     public long getContentLength() throws IOException {
-        return this.stream.available();
+        return -1;
     }
-    
+
     @Override
     public String getContentTransferEncoding() {
         return Constants.CONTENT_TRANSFER_ENCODING_BINARY;
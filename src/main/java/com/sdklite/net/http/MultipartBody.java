@@ -1,15 +1,18 @@
 package com.sdklite.net.http;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 
 import com.sdklite.net.MimeType;
@@ -26,6 +29,8 @@ public class MultipartBody extends HttpBody {
 
     private static final byte[] CR_LF = "\r\n".getBytes();
 
+    private static final long UNCOMPUTED = Long.MIN_VALUE;
+
     private static final char[] MULTIPART_CHARS = "-_1234567890abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
 
     static String generateBoundary() {
@@ -44,12 +49,21 @@ public class MultipartBody extends HttpBody {
 
     private final String boundary;
 
+    private final byte[] boundaryBytes;
+
     private final List<Part> parts;
 
+    private volatile long contentLength = UNCOMPUTED;
+
+    private volatile ByteBuffer[] framing;
+
+    private volatile MimeType contentType;
+
     private MultipartBody(final Builder builder) {
         this.charset = builder.charset;
         this.boundary = builder.boundary;
-        this.parts = Collections.unmodifiableList(builder.parts);
+        this.boundaryBytes = builder.boundary.getBytes(Constants.UTF_8);
+        this.parts = Collections.unmodifiableList(new ArrayList<Part>(builder.parts));
     }
 
     @Override
@@ -71,46 +85,175 @@ public class MultipartBody extends HttpBody {
         return this.parts;
     }
 
+    /**
+     * Returns the content type with boundary, it's created once per body and
+     * bypasses the parsing cache of {@link MimeType} as the boundary is unique
+     */
     @Override
     public MimeType getContentType() {
-        final StringBuilder builder = new StringBuilder();
-        builder.append("multipart/form-data; boundary=").append(this.boundary);
+        MimeType contentType = this.contentType;
+
+        if (null == contentType) {
+            final Map<String, String> parameters = new LinkedHashMap<String, String>();
+            parameters.put("boundary", this.boundary);
+
+            if (null != this.charset) {
+                parameters.put("charset", this.charset.name());
+            }
+
+            this.contentType = contentType = new MimeType("multipart", "form-data", parameters);
+        }
+
+        return contentType;
+    }
+
+    /**
+     * Returns the exact length of the encoded body or -1 if the length of any
+     * part is unknown, the length is calculated without serializing the parts
+     * and cached after the first call
+     */
+    @Override
+    public long getContentLength() throws IOException {
+        long length = this.contentLength;
+        if (UNCOMPUTED == length) {
+            this.contentLength = length = computeContentLength();
+        }
+
+        return length;
+    }
 
-        if (null != this.charset) {
-            builder.append("; charset=").append(this.charset.name());
+    private long computeContentLength() throws IOException {
+        long length = 0;
+
+        for (final Part part : this.parts) {
+            final long partLength = part.getEntity().getContentLength();
+            if (partLength < 0) {
+                return -1;
+            }
+
+            length += getPartHeadLength(part) + partLength + CR_LF.length;
         }
 
-        return MimeType.parse(builder.toString());
+        return length + DASHES.length + this.boundaryBytes.length + DASHES.length + CR_LF.length;
     }
 
     @Override
     public InputStream getContent() throws IOException {
-        final ByteArrayOutputStream out = new ByteArrayOutputStream();
-        writeTo(out);
-        return new ByteArrayInputStream(out.toByteArray());
+        return new MultipartInputStream(this);
     }
 
     @Override
     public void writeTo(final OutputStream out) throws IOException {
-        final byte[] boundary = this.boundary.getBytes();
-
         for (final Part part : this.parts) {
-            out.write(DASHES);
-            out.write(boundary);
-            out.write(CR_LF);
+            writePartHead(part, out);
+            part.getEntity().writeTo(out);
+            writePartTail(out);
+        }
+
+        writeTail(out);
+    }
 
-            for (final HttpHeader header : part.getHeaders()) {
-                out.write(header.toString().getBytes());
-                out.write(CR_LF);
+    /**
+     * Write this body into the specified channel, the framing bytes and the
+     * in-memory part contents are sent with gathering writes, the file parts
+     * are transferred with {@link java.nio.channels.FileChannel#transferTo(long, long, WritableByteChannel)}
+     */
+    @Override
+    public void writeTo(final WritableByteChannel channel) throws IOException {
+        final ByteBuffer[] framing = getFraming();
+        final ByteBuffer[] buffers = new ByteBuffer[framing.length * 2];
+        int count = 0;
+
+        for (int i = 0, n = this.parts.size(); i <= n; i++) {
+            buffers[count++] = framing[i].duplicate();
+
+            if (i == n) {
+                break;
             }
 
-            out.write(CR_LF);
-            part.getEntity().writeTo(out);
-            out.write(CR_LF);
+            final PartEntity entity = this.parts.get(i).getEntity();
+            final ByteBuffer content = entity instanceof PartBody ? ((PartBody) entity).getBuffer() : null;
+
+            if (null != content) {
+                buffers[count++] = content;
+            } else {
+                ByteChannels.writeFully(channel, buffers, 0, count);
+                count = 0;
+                entity.writeTo(channel);
+            }
+        }
+
+        ByteChannels.writeFully(channel, buffers, 0, count);
+    }
+
+    /**
+     * Returns the framing bytes preceding each part and the close delimiter,
+     * which are encoded only once as read-only direct buffers
+     */
+    private ByteBuffer[] getFraming() throws IOException {
+        ByteBuffer[] framing = this.framing;
+
+        if (null == framing) {
+            final int n = this.parts.size();
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+            framing = new ByteBuffer[n + 1];
+
+            for (int i = 0; i <= n; i++) {
+                out.reset();
+
+                if (i > 0) {
+                    writePartTail(out);
+                }
+
+                if (i < n) {
+                    writePartHead(this.parts.get(i), out);
+                } else {
+                    writeTail(out);
+                }
+
+                final ByteBuffer buffer = ByteBuffer.allocateDirect(out.size());
+                buffer.put(out.toByteArray()).flip();
+                framing[i] = buffer.asReadOnlyBuffer();
+            }
+
+            this.framing = framing;
         }
 
+        return framing;
+    }
+
+    /**
+     * Write the boundary and headers of the specified part
+     */
+    void writePartHead(final Part part, final OutputStream out) throws IOException {
+        out.write(DASHES);
+        out.write(this.boundaryBytes);
+        out.write(CR_LF);
+        out.write(part.getEncodedHeaders());
+        out.write(CR_LF);
+    }
+
+    /**
+     * Returns the length of the boundary and headers of the specified part
+     */
+    long getPartHeadLength(final Part part) throws IOException {
+        return DASHES.length + this.boundaryBytes.length + CR_LF.length + part.getEncodedHeaders().length + CR_LF.length;
+    }
+
+    /**
+     * Write the line break following the content of a part
+     */
+    void writePartTail(final OutputStream out) throws IOException {
+        out.write(CR_LF);
+    }
+
+    /**
+     * Write the close delimiter
+     */
+    void writeTail(final OutputStream out) throws IOException {
         out.write(DASHES);
-        out.write(boundary);
+        out.write(this.boundaryBytes);
         out.write(DASHES);
         out.write(CR_LF);
     }
@@ -0,0 +1,133 @@
+package com.sdklite.net.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+/**
+ * The lazy input stream of {@link MultipartBody}, the boundaries, part headers
+ * and part contents are streamed in order, the content of each part is opened
+ * only when it is reached, so that the memory usage is constant regardless of
+ * the size of parts
+ *
+ * @author johnsonlee
+ *
+ */
+class MultipartInputStream extends InputStream {
+
+    private final MultipartBody body;
+
+    private final Iterator<Part> parts;
+
+    private InputStream current;
+
+    private PartEntity entity;
+
+    private boolean afterEntity;
+
+    private boolean finished;
+
+    public MultipartInputStream(final MultipartBody body) {
+        this.body = body;
+        this.parts = body.getParts().iterator();
+    }
+
+    @Override
+    public int read() throws IOException {
+        while (null != this.current || nextSegment()) {
+            final int b = this.current.read();
+            if (b != -1) {
+                return b;
+            }
+
+            closeSegment();
+        }
+
+        return -1;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+
+        while (null != this.current || nextSegment()) {
+            final int n = this.current.read(b, off, len);
+            if (n > 0) {
+                return n;
+            }
+
+            closeSegment();
+        }
+
+        return -1;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return null != this.current ? this.current.available() : 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.entity = null;
+        this.finished = true;
+
+        while (this.parts.hasNext()) {
+            this.parts.next();
+        }
+
+        closeSegment();
+    }
+
+    private void closeSegment() throws IOException {
+        if (null != this.current) {
+            try {
+                this.current.close();
+            } finally {
+                this.current = null;
+            }
+        }
+    }
+
+    /**
+     * Move to the next segment which is either the framing bytes or the
+     * content of a part
+     *
+     * @return false if there's no more segment
+     */
+    private boolean nextSegment() throws IOException {
+        if (null != this.entity) {
+            this.current = this.entity.getContent();
+            this.entity = null;
+            this.afterEntity = true;
+            return true;
+        }
+
+        if (this.finished) {
+            return false;
+        }
+
+        final ByteArrayOutputStream framing = new ByteArrayOutputStream();
+        if (this.afterEntity) {
+            this.body.writePartTail(framing);
+            this.afterEntity = false;
+        }
+
+        if (this.parts.hasNext()) {
+            final Part part = this.parts.next();
+            this.body.writePartHead(part, framing);
+            this.entity = part.getEntity();
+        } else {
+            this.body.writeTail(framing);
+            this.finished = true;
+        }
+
+        this.current = new ByteArrayInputStream(framing.toByteArray());
+        return true;
+    }
+
+}
@@ -0,0 +1,619 @@
+package com.sdklite.net.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.sdklite.net.MalformedMimeTypeException;
+import com.sdklite.net.MimeType;
+
+/**
+ * The streaming parser of {@code multipart/form-data} body as defined in
+ * <a href="https://www.ietf.org/rfc/rfc7578.txt">RFC 7578</a>
+ *
+ * <p>
+ * The parts are produced one by one, the content of the current part is
+ * streamed directly from the source. If {@link #next()} is called before the
+ * current part has been consumed, the remaining content of the current part is
+ * buffered in memory up to the threshold, and spilled into a temporary file
+ * beyond the threshold, so that the memory usage is bounded regardless of the
+ * size of parts.
+ * </p>
+ *
+ * <p>
+ * The content of a parsed part can be read only once, and this parser is not
+ * thread safe.
+ * </p>
+ *
+ * @author johnsonlee
+ *
+ */
+public class MultipartParser implements Closeable {
+
+    /**
+     * The default threshold in bytes for spilling part content into temporary
+     * file
+     */
+    public static final int DEFAULT_THRESHOLD = 64 * 1024;
+
+    private static final int MAX_HEADER_SIZE = 16 * 1024;
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private final InputStream source;
+
+    private final int threshold;
+
+    private final File directory;
+
+    private final byte[] delimiter;
+
+    private final int[] skip;
+
+    private final byte[] buf;
+
+    private int pos;
+
+    private int limit;
+
+    private PartContent current;
+
+    private Part next;
+
+    private boolean finished;
+
+    private final List<File> tempFiles = new ArrayList<File>();
+
+    /**
+     * Create an instance with the content type of the multipart body
+     *
+     * @param in
+     *            The source stream
+     * @param contentType
+     *            The content type with {@code boundary} parameter
+     */
+    public MultipartParser(final InputStream in, final MimeType contentType) {
+        this(in, getBoundary(contentType));
+    }
+
+    /**
+     * Create an instance with the specified boundary
+     *
+     * @param in
+     *            The source stream
+     * @param boundary
+     *            The boundary of multipart body
+     */
+    public MultipartParser(final InputStream in, final String boundary) {
+        this(in, boundary, DEFAULT_THRESHOLD, null);
+    }
+
+    /**
+     * Create an instance with the specified boundary
+     *
+     * @param channel
+     *            The source channel
+     * @param boundary
+     *            The boundary of multipart body
+     */
+    public MultipartParser(final ReadableByteChannel channel, final String boundary) {
+        this(Channels.newInputStream(channel), boundary);
+    }
+
+    /**
+     * Create an instance with the specified boundary
+     *
+     * @param in
+     *            The source stream
+     * @param boundary
+     *            The boundary of multipart body
+     * @param threshold
+     *            The maximum number of bytes of a part to be buffered in
+     *            memory
+     * @param directory
+     *            The directory of temporary files, null for the system
+     *            default temporary directory
+     */
+    public MultipartParser(final InputStream in, final String boundary, final int threshold, final File directory) {
+        if (null == boundary || boundary.length() == 0) {
+            throw new IllegalArgumentException("Boundary is required");
+        }
+
+        final byte[] b = boundary.getBytes(Constants.UTF_8);
+        this.delimiter = new byte[b.length + 4];
+        this.delimiter[0] = '\r';
+        this.delimiter[1] = '\n';
+        this.delimiter[2] = '-';
+        this.delimiter[3] = '-';
+        System.arraycopy(b, 0, this.delimiter, 4, b.length);
+
+        this.skip = new int[256];
+        for (int i = 0; i < this.skip.length; i++) {
+            this.skip[i] = this.delimiter.length;
+        }
+        for (int i = 0; i < this.delimiter.length - 1; i++) {
+            this.skip[this.delimiter[i] & 0xff] = this.delimiter.length - 1 - i;
+        }
+
+        this.source = in;
+        this.threshold = threshold;
+        this.directory = directory;
+        this.buf = new byte[Math.max(BUFFER_SIZE, this.delimiter.length * 2)];
+
+        // the first boundary might not be preceded by CRLF
+        this.buf[0] = '\r';
+        this.buf[1] = '\n';
+        this.limit = 2;
+    }
+
+    /**
+     * Determine if there are more parts
+     *
+     * @return true if there are more parts
+     * @throws IOException
+     *             if I/O error occurred or the body is malformed
+     */
+    public boolean hasNext() throws IOException {
+        if (null == this.next && !this.finished) {
+            this.next = parseNext();
+        }
+
+        return null != this.next;
+    }
+
+    /**
+     * Returns the next part, the unread content of the previous part will be
+     * buffered
+     *
+     * @return the next part
+     * @throws IOException
+     *             if I/O error occurred or the body is malformed
+     * @throws NoSuchElementException
+     *             if there's no more parts
+     */
+    public Part next() throws IOException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        final Part part = this.next;
+        this.next = null;
+        return part;
+    }
+
+    /**
+     * Close the source stream and delete the temporary files
+     */
+    @Override
+    public void close() throws IOException {
+        this.finished = true;
+        this.next = null;
+
+        try {
+            this.source.close();
+        } finally {
+            for (final File file : this.tempFiles) {
+                file.delete();
+            }
+            this.tempFiles.clear();
+        }
+    }
+
+    private Part parseNext() throws IOException {
+        if (null != this.current) {
+            this.current.detach();
+            this.current = null;
+        } else {
+            // skip the preamble
+            final byte[] discard = new byte[BUFFER_SIZE];
+            while (readBody(discard, 0, discard.length) != -1) {
+            }
+        }
+
+        // the delimiter has been located at the current position
+        require(this.delimiter.length + 2);
+        this.pos += this.delimiter.length;
+
+        if (this.buf[this.pos] == '-' && this.buf[this.pos + 1] == '-') {
+            this.finished = true;
+            return null;
+        }
+
+        // skip the transport padding
+        for (int c = readByte(); c != '\r'; c = readByte()) {
+            if (c != ' ' && c != '\t') {
+                throw new IOException("Malformed multipart boundary");
+            }
+        }
+        if (readByte() != '\n') {
+            throw new IOException("Malformed multipart boundary");
+        }
+
+        return parsePart(parseHeaders());
+    }
+
+    private List<HttpHeader> parseHeaders() throws IOException {
+        final List<HttpHeader> headers = new ArrayList<HttpHeader>();
+        final ByteArrayOutputStream line = new ByteArrayOutputStream();
+        String field = null;
+        int size = 0;
+
+        for (;;) {
+            line.reset();
+
+            for (int c = readByte();; c = readByte()) {
+                if (c == -1) {
+                    throw new IOException("Unexpected end of multipart stream");
+                }
+
+                if (++size > MAX_HEADER_SIZE) {
+                    throw new IOException("Multipart headers too large");
+                }
+
+                if (c == '\r') {
+                    if (readByte() != '\n') {
+                        throw new IOException("Malformed multipart header");
+                    }
+                    break;
+                }
+
+                line.write(c);
+            }
+
+            final byte[] bytes = line.toByteArray();
+
+            if (bytes.length > 0 && (bytes[0] == ' ' || bytes[0] == '\t')) {
+                if (null == field) {
+                    throw new IOException("Malformed multipart header");
+                }
+
+                // obsolete line folding
+                field = field + ' ' + new String(bytes, Constants.UTF_8).trim();
+                continue;
+            }
+
+            if (null != field) {
+                try {
+                    headers.add(HttpHeaders.parse(field));
+                } catch (final IllegalArgumentException e) {
+                    throw new IOException("Malformed multipart header: " + field);
+                }
+            }
+
+            if (bytes.length == 0) {
+                return headers;
+            }
+
+            field = new String(bytes, Constants.UTF_8);
+        }
+    }
+
+    private Part parsePart(final List<HttpHeader> headers) throws IOException {
+        final Part.Builder builder = new Part.Builder();
+        String disposition = null;
+        String contentType = null;
+        String transferEncoding = null;
+
+        for (final HttpHeader header : headers) {
+            final HttpHeaderName name = HttpHeaderName.lookup(header.getName());
+
+            if (HttpHeaderName.CONTENT_DISPOSITION == name) {
+                disposition = header.getValue();
+            } else if (HttpHeaderName.CONTENT_TYPE == name) {
+                contentType = header.getValue();
+            } else if (HttpHeaderName.CONTENT_TRANSFER_ENCODING == name) {
+                transferEncoding = header.getValue();
+            } else {
+                builder.addHeaders(header);
+            }
+        }
+
+        if (null == disposition) {
+            throw new IOException("Missing Content-Disposition in multipart header");
+        }
+
+        final String filename = getDispositionParameter(disposition, "filename");
+        final MimeType type;
+
+        try {
+            type = null != contentType ? MimeType.parse(contentType) : null != filename ? null : Constants.TEXT_PLAIN;
+        } catch (final MalformedMimeTypeException e) {
+            throw new IOException("Malformed Content-Type in multipart header: " + contentType, e);
+        }
+
+        this.current = new PartContent();
+        return builder.setName(getDispositionParameter(disposition, "name"))
+                .setEntity(new ParsedPartBody(this.current, type, filename, transferEncoding))
+                .build();
+    }
+
+    /**
+     * Returns the parameter value of {@code Content-Disposition}
+     */
+    private static String getDispositionParameter(final String disposition, final String name) {
+        final int n = disposition.length();
+        int i = disposition.indexOf(';');
+
+        while (i >= 0 && i < n) {
+            int start = i + 1;
+            while (start < n && disposition.charAt(start) == ' ') {
+                start++;
+            }
+
+            final int eq = disposition.indexOf('=', start);
+            if (eq < 0) {
+                return null;
+            }
+
+            final String key = disposition.substring(start, eq).trim();
+            final StringBuilder value = new StringBuilder();
+
+            i = eq + 1;
+            if (i < n && disposition.charAt(i) == '"') {
+                for (i++; i < n && disposition.charAt(i) != '"'; i++) {
+                    final char c = disposition.charAt(i);
+                    if (c == '\\' && i + 1 < n) {
+                        value.append(disposition.charAt(++i));
+                    } else {
+                        value.append(c);
+                    }
+                }
+                i = disposition.indexOf(';', i);
+            } else {
+                final int semicolon = disposition.indexOf(';', i);
+                value.append(disposition.substring(i, semicolon < 0 ? n : semicolon).trim());
+                i = semicolon;
+            }
+
+            if (key.equalsIgnoreCase(name)) {
+                return value.toString();
+            }
+        }
+
+        return null;
+    }
+
+    private static String getBoundary(final MimeType contentType) {
+        final String boundary = contentType.getParameter("boundary");
+        if (null == boundary) {
+            throw new IllegalArgumentException("Missing boundary in " + contentType);
+        }
+
+        return boundary;
+    }
+
+    /**
+     * Read the content of the current part
+     *
+     * @return the number of bytes read, or -1 if the delimiter is reached
+     */
+    private int readBody(final byte[] b, final int off, final int len) throws IOException {
+        for (;;) {
+            final int i = indexOfDelimiter(this.pos, this.limit);
+            final int end = i >= 0 ? i : Math.max(this.pos, this.limit - this.delimiter.length + 1);
+
+            if (end > this.pos) {
+                final int n = Math.min(len, end - this.pos);
+                System.arraycopy(this.buf, this.pos, b, off, n);
+                this.pos += n;
+                return n;
+            }
+
+            if (i == this.pos) {
+                return -1;
+            }
+
+            if (!fill()) {
+                throw new IOException("Unexpected end of multipart stream");
+            }
+        }
+    }
+
+    /**
+     * Find the delimiter in buffer with Boyer-Moore-Horspool algorithm
+     */
+    private int indexOfDelimiter(final int from, final int to) {
+        final byte[] d = this.delimiter;
+        final int last = d.length - 1;
+
+        for (int i = from; i <= to - d.length; i += this.skip[this.buf[i + last] & 0xff]) {
+            int j = last;
+            while (j >= 0 && this.buf[i + j] == d[j]) {
+                j--;
+            }
+
+            if (j < 0) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private int readByte() throws IOException {
+        if (this.pos == this.limit && !fill()) {
+            return -1;
+        }
+
+        return this.buf[this.pos++] & 0xff;
+    }
+
+    private void require(final int n) throws IOException {
+        while (this.limit - this.pos < n) {
+            if (!fill()) {
+                throw new IOException("Unexpected end of multipart stream");
+            }
+        }
+    }
+
+    private boolean fill() throws IOException {
+        if (this.pos > 0) {
+            System.arraycopy(this.buf, this.pos, this.buf, 0, this.limit - this.pos);
+            this.limit -= this.pos;
+            this.pos = 0;
+        }
+
+        final int n = this.source.read(this.buf, this.limit, this.buf.length - this.limit);
+        if (n < 0) {
+            return false;
+        }
+
+        this.limit += n;
+        return true;
+    }
+
+    /**
+     * The content stream of part, it reads from the source directly until it's
+     * detached from the parser
+     */
+    private final class PartContent extends InputStream {
+
+        private InputStream buffered;
+
+        private File file;
+
+        private boolean attached = true;
+
+        private boolean eof;
+
+        @Override
+        public int read() throws IOException {
+            final byte[] b = new byte[1];
+            final int n = read(b, 0, 1);
+            return n == -1 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+
+            if (this.eof) {
+                return -1;
+            }
+
+            final int n = this.attached ? readBody(b, off, len) : this.buffered.read(b, off, len);
+            if (n == -1) {
+                this.attached = false;
+                close();
+            }
+
+            return n;
+        }
+
+        @Override
+        public int available() throws IOException {
+            if (null != this.buffered) {
+                return this.buffered.available();
+            }
+
+            return 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (this.eof) {
+                return;
+            }
+
+            this.eof = true;
+
+            if (null != this.buffered) {
+                this.buffered.close();
+            }
+
+            if (null != this.file) {
+                this.file.delete();
+                MultipartParser.this.tempFiles.remove(this.file);
+            }
+        }
+
+        /**
+         * Move the unread content into memory or temporary file
+         */
+        void detach() throws IOException {
+            if (!this.attached) {
+                return;
+            }
+
+            this.attached = false;
+
+            if (this.eof) {
+                // closed before the end of part, discard the unread content
+                final byte[] discard = new byte[BUFFER_SIZE];
+                while (readBody(discard, 0, discard.length) != -1) {
+                }
+                return;
+            }
+
+            final ByteArrayOutputStream memory = new ByteArrayOutputStream();
+            final byte[] chunk = new byte[BUFFER_SIZE];
+            OutputStream out = memory;
+
+            try {
+                for (int n; (n = readBody(chunk, 0, chunk.length)) != -1;) {
+                    if (null == this.file && memory.size() + n > MultipartParser.this.threshold) {
+                        this.file = File.createTempFile("multipart", ".tmp", MultipartParser.this.directory);
+                        MultipartParser.this.tempFiles.add(this.file);
+                        out = new FileOutputStream(this.file);
+                        memory.writeTo(out);
+                        memory.reset();
+                    }
+
+                    out.write(chunk, 0, n);
+                }
+            } finally {
+                if (out != memory) {
+                    out.close();
+                }
+            }
+
+            this.buffered = null != this.file ? new FileInputStream(this.file) : new ByteArrayInputStream(memory.toByteArray());
+        }
+
+    }
+
+    /**
+     * The entity of parsed part
+     */
+    private static final class ParsedPartBody extends PartBody {
+
+        private final PartContent content;
+
+        private final String transferEncoding;
+
+        public ParsedPartBody(final PartContent content, final MimeType contentType, final String filename, final String transferEncoding) {
+            super(contentType, filename);
+            this.content = content;
+            this.transferEncoding = transferEncoding;
+        }
+
+        @Override
+        public InputStream getContent() throws IOException {
+            return this.content;
+        }
+
+        @Override
+        public long getContentLength() throws IOException {
+            return -1;
+        }
+
+        @Override
+        public String getContentTransferEncoding() {
+            return null != this.transferEncoding ? this.transferEncoding : Constants.CONTENT_TRANSFER_ENCODING_BINARY;
+        }
+    }
+
+}
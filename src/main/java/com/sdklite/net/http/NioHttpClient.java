@@ -0,0 +1,1039 @@
+package com.sdklite.net.http;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import com.sdklite.net.AsyncDnsResolver;
+import com.sdklite.net.CoalescingDnsResolver;
+import com.sdklite.net.DnsResolver;
+import com.sdklite.net.MalformedMimeTypeException;
+import com.sdklite.net.MimeType;
+
+/**
+ * The non-blocking HTTP/1.1 client
+ *
+ * <p>
+ * Each event loop owns a {@link Selector} and multiplexes the connections
+ * assigned to it, so that thousands of in-flight requests are served by a
+ * handful of threads. The hostname is resolved asynchronously, the request
+ * entity is written on the executor into a bounded buffer which is drained
+ * into the connection by the event loop, and the returned future is completed
+ * once the response headers arrive, the response entity is streamed from the
+ * connection with back pressure.
+ * </p>
+ *
+ * <p>
+ * Each request is sent over a new connection with {@code Connection: close},
+ * and only the plain {@code http} scheme is supported.
+ * </p>
+ *
+ * @author johnsonlee
+ *
+ */
+public class NioHttpClient implements Closeable {
+
+    private static final int DEFAULT_PORT = 80;
+
+    private static final int READ_BUFFER_SIZE = 16 * 1024;
+
+    private static final int CONTENT_BUFFER_SIZE = 64 * 1024;
+
+    private static final long SELECT_TIMEOUT = 100;
+
+    private static final int DNS_THREADS = 4;
+
+    private static final int DNS_QUEUE_SIZE = 1024;
+
+    private final AsyncDnsResolver resolver;
+
+    /**
+     * The executor of the blocking resolver, or null if the resolver is
+     * asynchronous
+     */
+    private final ExecutorService dnsExecutor;
+
+    private final Executor executor;
+
+    private final ExecutorService defaultExecutor;
+
+    private final long timeout;
+
+    private final EventLoop[] loops;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private volatile boolean closed;
+
+    private NioHttpClient(final Builder builder) throws IOException {
+        this.dnsExecutor = builder.resolver instanceof AsyncDnsResolver ? null : newDnsExecutor();
+        this.resolver = null == this.dnsExecutor ? (AsyncDnsResolver) builder.resolver : new CoalescingDnsResolver(builder.resolver, this.dnsExecutor);
+        this.defaultExecutor = null != builder.executor ? null : newDefaultExecutor();
+        this.executor = null != builder.executor ? builder.executor : this.defaultExecutor;
+        this.timeout = builder.timeout;
+        this.loops = new EventLoop[builder.eventLoops];
+
+        final ThreadFactory factory = new NamedThreadFactory("http-event-loop");
+        for (int i = 0; i < this.loops.length; i++) {
+            this.loops[i] = new EventLoop();
+        }
+        for (final EventLoop loop : this.loops) {
+            factory.newThread(loop).start();
+        }
+    }
+
+    /**
+     * Execute the specified request asynchronously
+     *
+     * @param request
+     *            The HTTP request
+     * @return the future of response, which is completed on the executor
+     *         once the response headers are received, the response entity
+     *         must be consumed or closed to release the connection, and
+     *         cancelling the future aborts the exchange
+     */
+    public CompletableFuture<HttpResponse> execute(final HttpRequest request) {
+        final CompletableFuture<HttpResponse> future = new CompletableFuture<HttpResponse>();
+        final URI uri;
+
+        try {
+            uri = new URI(request.getUrl());
+        } catch (final URISyntaxException e) {
+            future.completeExceptionally(new IOException("Malformed URL " + request.getUrl(), e));
+            return future;
+        }
+
+        if (!"http".equalsIgnoreCase(uri.getScheme())) {
+            future.completeExceptionally(new IOException("Unsupported scheme " + uri.getScheme()));
+            return future;
+        }
+
+        if (null == uri.getHost()) {
+            future.completeExceptionally(new IOException("Missing host in " + request.getUrl()));
+            return future;
+        }
+
+        if (this.closed) {
+            future.completeExceptionally(new IOException("Client is closed"));
+            return future;
+        }
+
+        final String host = uri.getHost().startsWith("[") ? uri.getHost().substring(1, uri.getHost().length() - 1) : uri.getHost();
+        final Exchange exchange = new Exchange(request, future, uri.getPort() < 0 ? DEFAULT_PORT : uri.getPort());
+        final HttpEntity entity = request.getEntity();
+
+        if (null == entity) {
+            resolve(exchange, host);
+            return future;
+        }
+
+        try {
+            this.executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    final boolean chunked;
+
+                    try {
+                        chunked = exchange.prepare();
+                    } catch (final Throwable e) {
+                        exchange.fail(e);
+                        return;
+                    }
+
+                    resolve(exchange, host);
+                    exchange.produce(entity, chunked);
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            exchange.fail(new IOException("Too many pending requests", e));
+        }
+
+        return future;
+    }
+
+    /**
+     * Shutdown the event loops, the in-flight requests are failed
+     */
+    @Override
+    public void close() {
+        this.closed = true;
+
+        for (final EventLoop loop : this.loops) {
+            loop.selector.wakeup();
+        }
+
+        if (null != this.defaultExecutor) {
+            this.defaultExecutor.shutdown();
+        }
+
+        if (null != this.dnsExecutor) {
+            this.dnsExecutor.shutdown();
+        }
+    }
+
+    private void resolve(final Exchange exchange, final String host) {
+        this.resolver.resolveAsync(host).whenComplete(new BiConsumer<List<InetAddress>, Throwable>() {
+            @Override
+            public void accept(final List<InetAddress> addresses, final Throwable e) {
+                if (null != e) {
+                    exchange.fail(e instanceof CompletionException && null != e.getCause() ? e.getCause() : e);
+                } else if (addresses.isEmpty()) {
+                    exchange.fail(new IOException("No address associated with " + host));
+                } else {
+                    exchange.addresses = addresses;
+                    loops[(next.getAndIncrement() & Integer.MAX_VALUE) % loops.length].submit(exchange);
+                }
+            }
+        });
+    }
+
+    private static ExecutorService newDefaultExecutor() {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(2, 2, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(4096), new NamedThreadFactory("http-entity"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static ExecutorService newDnsExecutor() {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(DNS_THREADS, DNS_THREADS, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(DNS_QUEUE_SIZE), new NamedThreadFactory("http-dns"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static IOException toIOException(final Throwable e) {
+        return e instanceof IOException ? (IOException) e : new IOException(e);
+    }
+
+    /**
+     * The event loop which owns a selector
+     */
+    private final class EventLoop implements Runnable {
+
+        final Selector selector;
+
+        final Queue<Exchange> pending = new ConcurrentLinkedQueue<Exchange>();
+
+        final Queue<Exchange> resumed = new ConcurrentLinkedQueue<Exchange>();
+
+        /**
+         * The codec for encoding request heads, accessed by loop thread only
+         */
+        final Http1Codec codec = new Http1Codec();
+
+        /**
+         * Indicates whether this loop has stopped, the exchanges submitted
+         * afterwards are failed
+         */
+        volatile boolean stopped;
+
+        EventLoop() throws IOException {
+            this.selector = Selector.open();
+        }
+
+        void submit(final Exchange exchange) {
+            this.pending.add(exchange);
+            this.selector.wakeup();
+
+            if ((closed || this.stopped) && this.pending.remove(exchange)) {
+                exchange.fail(new IOException("Client is closed"));
+            }
+        }
+
+        void resume(final Exchange exchange) {
+            this.resumed.add(exchange);
+            this.selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            final long sweepInterval = TimeUnit.MILLISECONDS.toNanos(SELECT_TIMEOUT);
+            long lastSweep = System.nanoTime();
+
+            try {
+                while (!closed) {
+                    this.selector.select(SELECT_TIMEOUT);
+
+                    for (Exchange exchange; null != (exchange = this.pending.poll());) {
+                        exchange.start(this);
+                    }
+
+                    for (Exchange exchange; null != (exchange = this.resumed.poll());) {
+                        try {
+                            exchange.resume();
+                        } catch (final Throwable e) {
+                            exchange.fail(e);
+                        }
+                    }
+
+                    for (final Iterator<SelectionKey> i = this.selector.selectedKeys().iterator(); i.hasNext();) {
+                        final SelectionKey key = i.next();
+                        i.remove();
+                        ((Exchange) key.attachment()).handle(key);
+                    }
+
+                    // sweep the idle connections at most once per select timeout instead of on each wakeup
+                    final long now = System.nanoTime();
+                    if (now - lastSweep >= sweepInterval) {
+                        lastSweep = now;
+
+                        for (final SelectionKey key : this.selector.keys()) {
+                            ((Exchange) key.attachment()).checkTimeout(now);
+                        }
+                    }
+                }
+            } catch (final Throwable e) {
+                // the selector is broken, fail all of the exchanges below
+            }
+
+            this.stopped = true;
+
+            final IOException e = new IOException("Client is closed");
+
+            for (Exchange exchange; null != (exchange = this.pending.poll());) {
+                exchange.fail(e);
+            }
+
+            for (final SelectionKey key : this.selector.keys()) {
+                ((Exchange) key.attachment()).fail(e);
+            }
+
+            try {
+                this.selector.close();
+            } catch (final IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * Represents a request and response exchange over a connection
+     */
+    private final class Exchange implements Runnable {
+
+        private static final int NONE = 0;
+
+        private static final int FIXED = 1;
+
+        private static final int CHUNKED = 2;
+
+        private static final int EOF = 3;
+
+        private static final int CHUNK_SIZE = 0;
+
+        private static final int CHUNK_EXTENSION = 1;
+
+        private static final int CHUNK_DATA = 2;
+
+        private static final int CHUNK_END = 3;
+
+        private static final int TRAILER = 4;
+
+        final CompletableFuture<HttpResponse> future;
+
+        final int port;
+
+        final HttpMethod method;
+
+        /**
+         * The codec for decoding response head
+         */
+        final Http1Codec codec = new Http1Codec();
+
+        HttpRequest request;
+
+        /**
+         * The request entity which is fed by the executor, or null if there
+         * is nothing left to send
+         */
+        StreamingChannel body;
+
+        /**
+         * The content length added by {@link #prepare()}, or -1 if the
+         * request is framed by the caller or chunked
+         */
+        long length = -1;
+
+        volatile List<InetAddress> addresses;
+
+        int nextAddress;
+
+        volatile EventLoop loop;
+
+        SocketChannel channel;
+
+        SelectionKey key;
+
+        ByteBuffer head;
+
+        ByteBuffer in;
+
+        StreamingContent content;
+
+        int framing;
+
+        long remaining;
+
+        int chunkState;
+
+        boolean chunkLineEmpty;
+
+        boolean paused;
+
+        boolean done;
+
+        long lastActivity;
+
+        Exchange(final HttpRequest request, final CompletableFuture<HttpResponse> future, final int port) {
+            this.request = request;
+            this.future = future;
+            this.port = port;
+            this.method = null != request.getMethod() ? request.getMethod() : HttpMethod.GET;
+            this.body = null != request.getEntity() ? new StreamingChannel(CONTENT_BUFFER_SIZE, this) : null;
+
+            // abort the exchange on the loop once the caller gives up the response
+            future.whenComplete(new BiConsumer<HttpResponse, Throwable>() {
+                @Override
+                public void accept(final HttpResponse response, final Throwable e) {
+                    final EventLoop loop = Exchange.this.loop;
+                    if (future.isCancelled() && null != loop) {
+                        loop.resume(Exchange.this);
+                    }
+                }
+            });
+        }
+
+        /**
+         * Frame the request entity on the executor, as the content length
+         * might be computed by I/O. The {@code Content-Length} is added if the
+         * length is known, otherwise, the {@code Transfer-Encoding: chunked}
+         * is added, unless the request is framed by the caller
+         *
+         * @return true if the entity should be chunked
+         */
+        boolean prepare() throws IOException {
+            final String te = this.request.getHeader(HttpHeaderName.TRANSFER_ENCODING);
+            if (null != te) {
+                return te.toLowerCase(Locale.US).endsWith("chunked");
+            }
+
+            if (null != this.request.getHeader(HttpHeaderName.CONTENT_LENGTH)) {
+                return false;
+            }
+
+            this.length = this.request.getEntity().getContentLength();
+            this.request = this.length >= 0
+                    ? this.request.newBuilder().addHeader(HttpHeaderName.CONTENT_LENGTH.getName(), String.valueOf(this.length)).build()
+                    : this.request.newBuilder().addHeader(HttpHeaderName.TRANSFER_ENCODING.getName(), "chunked").build();
+            return this.length < 0;
+        }
+
+        /**
+         * Write the entity into the bounded body on the executor, which blocks
+         * until the event loop drains the body into the connection
+         */
+        void produce(final HttpEntity entity, final boolean chunked) {
+            final StreamingChannel body = this.body;
+
+            try {
+                final WritableByteChannel channel = chunked ? Http1Codec.newChunkedChannel(body) : body;
+                entity.writeTo(channel);
+
+                if (chunked) {
+                    channel.close();
+                }
+
+                if (this.length >= 0 && this.length != body.getCount()) {
+                    throw new IOException("Content length " + this.length + " mismatches " + body.getCount() + " bytes of entity");
+                }
+
+                body.close();
+            } catch (final Throwable e) {
+                body.fail(toIOException(e));
+            }
+        }
+
+        void start(final EventLoop loop) {
+            this.loop = loop;
+
+            if (this.future.isCancelled()) {
+                fail(new IOException("Request is cancelled"));
+                return;
+            }
+
+            try {
+                final HttpRequest request = null != this.request.getHeader(HttpHeaderName.CONNECTION) ? this.request
+                        : this.request.newBuilder().addHeader(HttpHeaderName.CONNECTION.getName(), "close").build();
+                final ByteBuffer encoded = loop.codec.encode(request);
+                this.head = ByteBuffer.allocate(encoded.remaining());
+                this.head.put(encoded).flip();
+                this.request = null;
+                connect();
+            } catch (final Throwable e) {
+                fail(e);
+            }
+        }
+
+        /**
+         * Connect to the next address, the addresses which refuse the
+         * connection immediately are skipped
+         */
+        private void connect() throws IOException {
+            for (;;) {
+                final SocketChannel channel = SocketChannel.open();
+
+                try {
+                    channel.configureBlocking(false);
+                    channel.socket().setTcpNoDelay(true);
+                    final boolean connected = channel.connect(new InetSocketAddress(this.addresses.get(this.nextAddress++), this.port));
+                    this.channel = channel;
+                    this.key = channel.register(this.loop.selector, connected ? SelectionKey.OP_WRITE : SelectionKey.OP_CONNECT, this);
+                    this.lastActivity = System.nanoTime();
+                    return;
+                } catch (final IOException e) {
+                    channel.close();
+                    this.channel = null;
+
+                    if (this.nextAddress >= this.addresses.size()) {
+                        throw e;
+                    }
+                }
+            }
+        }
+
+        void handle(final SelectionKey key) {
+            try {
+                if (!key.isValid()) {
+                    return;
+                }
+
+                if (key.isConnectable()) {
+                    finishConnect();
+                } else if (key.isWritable()) {
+                    write();
+                } else if (key.isReadable()) {
+                    read();
+                }
+            } catch (final Throwable e) {
+                fail(e);
+            }
+        }
+
+        private void finishConnect() throws IOException {
+            try {
+                if (this.channel.finishConnect()) {
+                    this.key.interestOps(SelectionKey.OP_WRITE);
+                    this.lastActivity = System.nanoTime();
+                }
+            } catch (final IOException e) {
+                this.key.cancel();
+                this.channel.close();
+
+                if (this.nextAddress >= this.addresses.size()) {
+                    throw e;
+                }
+
+                connect();
+            }
+        }
+
+        private void write() throws IOException {
+            if (null != this.head) {
+                if (this.channel.write(this.head) > 0) {
+                    this.lastActivity = System.nanoTime();
+                }
+
+                if (this.head.hasRemaining()) {
+                    return;
+                }
+
+                this.head = null;
+            }
+
+            if (null != this.body) {
+                final int n = this.body.drainTo(this.channel);
+                if (n >= 0) {
+                    if (n > 0) {
+                        this.lastActivity = System.nanoTime();
+                    }
+
+                    // wait for the executor, the write interest is restored by resume()
+                    if (this.body.isStarved()) {
+                        this.key.interestOps(0);
+                    }
+                    return;
+                }
+
+                this.body = null;
+            }
+
+            this.in = ByteBuffer.allocate(READ_BUFFER_SIZE);
+            this.key.interestOps(SelectionKey.OP_READ);
+        }
+
+        private void read() throws IOException {
+            final int n = this.channel.read(this.in);
+            if (n > 0) {
+                this.lastActivity = System.nanoTime();
+            }
+
+            this.in.flip();
+            try {
+                process(n < 0);
+            } finally {
+                this.in.compact();
+            }
+        }
+
+        /**
+         * Continue writing after the executor fed the request entity, or
+         * continue reading after the consumer drained the content, invoked by
+         * the loop thread
+         */
+        void resume() {
+            if (this.done) {
+                return;
+            }
+
+            if (this.future.isCancelled()) {
+                fail(new IOException("Request is cancelled"));
+                return;
+            }
+
+            if (null != this.body) {
+                this.key.interestOps(SelectionKey.OP_WRITE);
+                return;
+            }
+
+            if (this.content.isClosed()) {
+                this.done = true;
+                close();
+                return;
+            }
+
+            if (!this.paused) {
+                return;
+            }
+
+            this.paused = false;
+            this.lastActivity = System.nanoTime();
+            this.in.flip();
+
+            try {
+                process(false);
+            } catch (final Throwable e) {
+                fail(e);
+                return;
+            } finally {
+                this.in.compact();
+            }
+
+            if (!this.paused && !this.done) {
+                this.key.interestOps(SelectionKey.OP_READ);
+            }
+        }
+
+        /**
+         * Invoked by the executor once the request entity is fed, or by the
+         * consumer thread once the content is drained
+         */
+        @Override
+        public void run() {
+            this.loop.resume(this);
+        }
+
+        private void process(final boolean eof) throws IOException {
+            if (null == this.content) {
+                HttpResponse head = this.codec.decodeResponse(this.in);
+
+                // skip the interim responses
+                while (null != head && head.getStatusCode() / 100 == 1) {
+                    head = this.codec.decodeResponse(this.in);
+                }
+
+                if (null == head) {
+                    if (eof) {
+                        throw new IOException("Unexpected end of stream");
+                    }
+                    return;
+                }
+
+                final long length = frame(head);
+                this.content = new StreamingContent(CONTENT_BUFFER_SIZE, this);
+                respond(head.newBuilder().setEntity(new StreamingHttpBody(parseContentType(head), length, this.content)).build());
+            }
+
+            if (this.content.isClosed()) {
+                // the consumer gave up the content, there is no way to reuse the connection
+                this.done = true;
+                close();
+                return;
+            }
+
+            switch (this.framing) {
+            case NONE:
+                finish();
+                break;
+            case FIXED:
+                if (this.in.hasRemaining()) {
+                    this.remaining -= offer((int) Math.min(this.remaining, this.in.remaining()));
+                }
+                if (0 == this.remaining) {
+                    finish();
+                } else if (eof && !this.paused) {
+                    throw new IOException("Unexpected end of stream");
+                }
+                break;
+            case CHUNKED:
+                decodeChunks();
+                if (eof && !this.done && !this.paused) {
+                    throw new IOException("Unexpected end of stream");
+                }
+                break;
+            case EOF:
+                if (this.in.hasRemaining()) {
+                    offer(this.in.remaining());
+                }
+                if (eof && !this.paused) {
+                    finish();
+                }
+                break;
+            }
+        }
+
+        private long frame(final HttpResponse head) throws IOException {
+            final int status = head.getStatusCode();
+
+            if (HttpMethod.HEAD == this.method || 204 == status || 304 == status) {
+                this.framing = NONE;
+                return 0;
+            }
+
+            final String te = head.getHeader(HttpHeaderName.TRANSFER_ENCODING);
+            if (null != te && te.toLowerCase(Locale.US).endsWith("chunked")) {
+                this.framing = CHUNKED;
+                this.chunkState = CHUNK_SIZE;
+                return -1;
+            }
+
+            final String cl = head.getHeader(HttpHeaderName.CONTENT_LENGTH);
+            if (null != cl) {
+                try {
+                    this.remaining = Long.parseLong(cl.trim());
+                } catch (final NumberFormatException e) {
+                    throw new IOException("Malformed Content-Length " + cl);
+                }
+
+                if (this.remaining < 0) {
+                    throw new IOException("Malformed Content-Length " + cl);
+                }
+
+                this.framing = FIXED;
+                return this.remaining;
+            }
+
+            this.framing = EOF;
+            return -1;
+        }
+
+        private void decodeChunks() throws IOException {
+            while (this.in.hasRemaining() && !this.paused && !this.done) {
+                switch (this.chunkState) {
+                case CHUNK_SIZE: {
+                    final byte b = this.in.get();
+                    final int digit = Character.digit(b, 16);
+                    if (digit >= 0) {
+                        if (this.remaining > (Long.MAX_VALUE >> 4)) {
+                            throw new IOException("Chunk size overflow");
+                        }
+                        this.remaining = (this.remaining << 4) | digit;
+                    } else if (';' == b || ' ' == b || '\t' == b) {
+                        this.chunkState = CHUNK_EXTENSION;
+                    } else if ('\n' == b) {
+                        this.chunkState = 0 == this.remaining ? TRAILER : CHUNK_DATA;
+                        this.chunkLineEmpty = true;
+                    } else if ('\r' != b) {
+                        throw new IOException("Malformed chunk size");
+                    }
+                    break;
+                }
+                case CHUNK_EXTENSION:
+                    if ('\n' == this.in.get()) {
+                        this.chunkState = 0 == this.remaining ? TRAILER : CHUNK_DATA;
+                        this.chunkLineEmpty = true;
+                    }
+                    break;
+                case CHUNK_DATA:
+                    this.remaining -= offer((int) Math.min(this.remaining, this.in.remaining()));
+                    if (0 == this.remaining) {
+                        this.chunkState = CHUNK_END;
+                    }
+                    break;
+                case CHUNK_END: {
+                    final byte b = this.in.get();
+                    if ('\n' == b) {
+                        this.chunkState = CHUNK_SIZE;
+                    } else if ('\r' != b) {
+                        throw new IOException("Malformed chunk");
+                    }
+                    break;
+                }
+                case TRAILER: {
+                    final byte b = this.in.get();
+                    if ('\n' == b) {
+                        if (this.chunkLineEmpty) {
+                            finish();
+                        }
+                        this.chunkLineEmpty = true;
+                    } else if ('\r' != b) {
+                        this.chunkLineEmpty = false;
+                    }
+                    break;
+                }
+                }
+            }
+        }
+
+        /**
+         * Offer the received bytes to the consumer, the connection is paused
+         * if the content buffer is full
+         */
+        private int offer(final int n) {
+            final int accepted = this.content.offer(this.in, n);
+            if (accepted < n) {
+                this.paused = true;
+                this.key.interestOps(0);
+            }
+            return accepted;
+        }
+
+        void checkTimeout(final long now) {
+            if (!this.done && !this.paused && now - this.lastActivity > timeout) {
+                fail(new SocketTimeoutException("Timeout after " + TimeUnit.NANOSECONDS.toMillis(timeout) + "ms"));
+            }
+        }
+
+        private void finish() {
+            this.done = true;
+            this.content.finish();
+            close();
+        }
+
+        /**
+         * Complete the future on the executor, so that the dependent stages
+         * never run on the loop, which would deadlock once they wait for the
+         * content. The content is abandoned if the future has been completed
+         * otherwise, e.g. cancelled by the caller
+         */
+        private void respond(final HttpResponse response) {
+            final StreamingContent content = this.content;
+
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (!future.complete(response)) {
+                            content.close();
+                        }
+                    }
+                });
+            } catch (final RejectedExecutionException e) {
+                content.close();
+                fail(new IOException("Response is rejected by executor", e));
+            }
+        }
+
+        void fail(final Throwable e) {
+            this.done = true;
+            close();
+
+            if (null != this.content) {
+                this.content.fail(toIOException(e));
+            }
+
+            if (this.future.isDone()) {
+                return;
+            }
+
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        future.completeExceptionally(e);
+                    }
+                });
+            } catch (final RejectedExecutionException ignored) {
+                // the executor is shut down or saturated
+                this.future.completeExceptionally(e);
+            }
+        }
+
+        private void close() {
+            final StreamingChannel body = this.body;
+            if (null != body) {
+                body.cancel();
+            }
+
+            if (null != this.key) {
+                this.key.cancel();
+            }
+
+            if (null != this.channel) {
+                try {
+                    this.channel.close();
+                } catch (final IOException ignored) {
+                }
+            }
+        }
+    }
+
+    private static MimeType parseContentType(final HttpResponse response) {
+        final String contentType = response.getHeader(HttpHeaderName.CONTENT_TYPE);
+        if (null == contentType) {
+            return null;
+        }
+
+        try {
+            return MimeType.parse(contentType);
+        } catch (final MalformedMimeTypeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The {@link ThreadFactory} which creates named daemon threads
+     */
+    private static final class NamedThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        private final String prefix;
+
+        NamedThreadFactory(final String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(final Runnable r) {
+            final Thread thread = new Thread(r, this.prefix + "-" + this.count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /**
+     * Represents the builder of {@link NioHttpClient}
+     *
+     * @author johnsonlee
+     *
+     */
+    public static final class Builder {
+
+        private DnsResolver resolver = DnsResolver.SYSTEM;
+
+        private int eventLoops = 2;
+
+        private Executor executor;
+
+        private long timeout = TimeUnit.SECONDS.toNanos(30);
+
+        /**
+         * Sets the DNS resolver, the {@link DnsResolver#SYSTEM} resolver is
+         * used by default, the blocking resolvers are wrapped by
+         * {@link CoalescingDnsResolver} on a thread pool which is shut down
+         * with this client
+         *
+         * @param resolver
+         *            The DNS resolver
+         * @return this builder
+         */
+        public Builder setDnsResolver(final DnsResolver resolver) {
+            if (null == resolver) {
+                throw new IllegalArgumentException("DNS resolver is required");
+            }
+
+            this.resolver = resolver;
+            return this;
+        }
+
+        /**
+         * Sets the number of event loop threads, 2 by default
+         *
+         * @param eventLoops
+         *            The number of event loops
+         * @return this builder
+         */
+        public Builder setEventLoops(final int eventLoops) {
+            if (eventLoops < 1) {
+                throw new IllegalArgumentException("At least one event loop is required");
+            }
+
+            this.eventLoops = eventLoops;
+            return this;
+        }
+
+        /**
+         * Sets the executor for writing request entities, a thread is
+         * occupied by each request entity until it's sent, a bounded daemon
+         * thread pool is used by default
+         *
+         * @param executor
+         *            The executor
+         * @return this builder
+         */
+        public Builder setExecutor(final Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Sets the idle timeout of connecting, writing and reading, 30 seconds
+         * by default, the timer is suspended while the response content is
+         * waiting for the consumer
+         *
+         * @param timeout
+         *            The idle timeout
+         * @param unit
+         *            The time unit of timeout
+         * @return this builder
+         */
+        public Builder setTimeout(final long timeout, final TimeUnit unit) {
+            this.timeout = unit.toNanos(timeout);
+            return this;
+        }
+
+        /**
+         * Instantialize a {@link NioHttpClient}
+         *
+         * @return an instance of {@link NioHttpClient}
+         * @throws IOException
+         *             if the selectors couldn't be opened
+         */
+        public NioHttpClient build() throws IOException {
+            return new NioHttpClient(this);
+        }
+    }
+
+}
@@ -1,5 +1,10 @@
 package com.sdklite.net.http;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import com.sdklite.net.MimeType;
+
 /**
  * Represent the HTTP multipart form data part
  * 
@@ -8,13 +13,59 @@ package com.sdklite.net.http;
  */
 public class Part extends HttpMessage {
 
+    private static final byte[] CR_LF = { '\r', '\n' };
+
+    private static final byte[] COLON_SPACE = { ':', ' ' };
+
     private final String name;
 
+    private volatile byte[] encodedHeaders;
+
     private Part(final Builder builder) {
         super(builder);
         this.name = builder.name;
     }
 
+    /**
+     * Encode the header block in {@code UTF-8}, each header line is terminated
+     * with {@code CRLF}, the bytes of standard header names are written
+     * without encoding
+     *
+     * @param headers
+     *            The headers of part
+     * @param contentType
+     *            The detected content type which is encoded after the
+     *            {@code Content-Disposition}, or null if it's in headers
+     */
+    private static byte[] encodeHeaders(final Iterable<HttpHeader> headers, final MimeType contentType) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        boolean pending = null != contentType;
+
+        for (final HttpHeader header : headers) {
+            final HttpHeaderName known = HttpHeaderName.lookup(header.getName());
+            encodeHeader(out, null != known ? known.getBytes() : String.valueOf(header.getName()).getBytes(Constants.UTF_8), String.valueOf(header.getValue()));
+
+            if (pending && HttpHeaderName.CONTENT_DISPOSITION == known) {
+                encodeHeader(out, HttpHeaderName.CONTENT_TYPE.getBytes(), contentType.toString());
+                pending = false;
+            }
+        }
+
+        if (pending) {
+            encodeHeader(out, HttpHeaderName.CONTENT_TYPE.getBytes(), contentType.toString());
+        }
+
+        return out.toByteArray();
+    }
+
+    private static void encodeHeader(final ByteArrayOutputStream out, final byte[] name, final String value) {
+        final byte[] bytes = value.getBytes(Constants.UTF_8);
+        out.write(name, 0, name.length);
+        out.write(COLON_SPACE, 0, COLON_SPACE.length);
+        out.write(bytes, 0, bytes.length);
+        out.write(CR_LF, 0, CR_LF.length);
+    }
+
     /**
      * Returns the name of part
      */
@@ -22,6 +73,28 @@ public class Part extends HttpMessage {
         return this.name;
     }
 
+    /**
+     * Returns the encoded header block which is shared, the caller must not
+     * modify it, the block is encoded on the first call. The content type
+     * which was unknown when the part was built is detected and encoded here,
+     * so that it never appears in the headers of this part
+     * 
+     * @throws IOException
+     *             if the content type of entity couldn't be detected
+     */
+    byte[] getEncodedHeaders() throws IOException {
+        byte[] encodedHeaders = this.encodedHeaders;
+
+        if (null == encodedHeaders) {
+            final MimeType detected = this.entity instanceof PartBody && null == getHeader(HttpHeaderName.CONTENT_TYPE)
+                    ? ((PartBody) this.entity).resolveContentType()
+                    : null;
+            this.encodedHeaders = encodedHeaders = encodeHeaders(this.headers, detected);
+        }
+
+        return encodedHeaders;
+    }
+
     @Override
     public PartEntity getEntity() {
         return (PartEntity) super.getEntity();
@@ -85,9 +158,14 @@ public class Part extends HttpMessage {
 
         @Override
         public Part build() {
-            this.addHeader("Content-Disposition", getContentDisposition());
-            this.addHeader("Content-Type", getContentType());
-            this.addHeader("Content-Transfer-Encoding", getContentTransferEncoding());
+            this.addHeader(HttpHeaderName.CONTENT_DISPOSITION.getName(), getContentDisposition());
+
+            final MimeType contentType = getContentType();
+            if (null != contentType) {
+                this.addHeader(HttpHeaderName.CONTENT_TYPE.getName(), contentType.toString());
+            }
+
+            this.addHeader(HttpHeaderName.CONTENT_TRANSFER_ENCODING.getName(), getContentTransferEncoding());
             return new Part(this);
         }
 
@@ -105,8 +183,16 @@ public class Part extends HttpMessage {
             return builder.toString();
         }
 
-        private String getContentType() {
-            return this.entity.getContentType().toString();
+        /**
+         * Returns the content type of entity, or null if it's not detected
+         * yet, which is left to {@link Part#getEncodedHeaders()}
+         */
+        private MimeType getContentType() {
+            if (this.entity instanceof PartBody) {
+                return ((PartBody) this.entity).peekContentType();
+            }
+
+            return this.entity.getContentType();
         }
 
         private String getContentTransferEncoding() {
@@ -117,4 +203,5 @@ public class Part extends HttpMessage {
             return Constants.CONTENT_TRANSFER_ENCODING_7BIT;
         }
     }
+
 }
@@ -2,6 +2,9 @@ package com.sdklite.net.http;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 
 import com.sdklite.io.IOUtil;
@@ -9,20 +12,72 @@ import com.sdklite.net.MimeType;
 
 abstract class PartBody implements PartEntity {
 
-    private final MimeType contentType;
+    private volatile MimeType contentType;
 
     private final String filename;
 
+    /**
+     * Create an instance, the content type is guessed from the filename if
+     * absent, otherwise, it's detected by {@link #detectContentType()} on
+     * demand
+     */
     public PartBody(final MimeType contentType, final String filename) {
-        this.contentType = null != contentType ? contentType : null != filename ? MimeType.guess(filename, Constants.APPLICATION_OCTET_STREAM) : Constants.APPLICATION_OCTET_STREAM;
+        this.contentType = null != contentType ? contentType : null != filename ? MimeType.guess(filename) : null;
         this.filename = filename;
     }
 
+    /**
+     * Returns the content type
+     * 
+     * @throws UncheckedIOException
+     *             if the content type couldn't be detected
+     */
     @Override
     public final MimeType getContentType() {
+        try {
+            return resolveContentType();
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the content type, which is detected on the first call if it's
+     * unknown at construction
+     * 
+     * @throws IOException
+     *             if the content type couldn't be detected
+     */
+    final MimeType resolveContentType() throws IOException {
+        MimeType contentType = this.contentType;
+
+        if (null == contentType) {
+            synchronized (this) {
+                if (null == (contentType = this.contentType)) {
+                    this.contentType = contentType = detectContentType();
+                }
+            }
+        }
+
+        return contentType;
+    }
+
+    /**
+     * Returns the content type without detecting it, or null if it's not
+     * detected yet
+     */
+    final MimeType peekContentType() {
         return this.contentType;
     }
 
+    /**
+     * Detect the content type if it's unknown at construction, the
+     * {@code application/octet-stream} is returned by default
+     */
+    MimeType detectContentType() throws IOException {
+        return Constants.APPLICATION_OCTET_STREAM;
+    }
+
     @Override
     public String getContentTransferEncoding() {
         return Constants.CONTENT_TRANSFER_ENCODING_7BIT;
@@ -38,6 +93,25 @@ abstract class PartBody implements PartEntity {
         IOUtil.copy(getContent(), out);
     }
 
+    @Override
+    public void writeTo(final WritableByteChannel channel) throws IOException {
+        final ByteBuffer buffer = getBuffer();
+        if (null != buffer) {
+            ByteChannels.writeFully(channel, buffer);
+            return;
+        }
+
+        PartEntity.super.writeTo(channel);
+    }
+
+    /**
+     * Returns the content as a new read-only buffer if the content is held in
+     * memory, otherwise, null is returned
+     */
+    ByteBuffer getBuffer() {
+        return null;
+    }
+
     @Override
     public final String getFilename() {
         return this.filename;
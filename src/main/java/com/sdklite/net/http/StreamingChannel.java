@@ -0,0 +1,207 @@
+package com.sdklite.net.http;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * The bounded channel which is fed by the entity writer thread and drained
+ * into the connection by the network thread
+ *
+ * <p>
+ * The writer blocks while the buffer is full, and it invokes the ready
+ * callback once there are bytes for the starved network thread, so that the
+ * entity is streamed with back pressure instead of being held in memory as a
+ * whole.
+ * </p>
+ *
+ * @author johnsonlee
+ *
+ */
+final class StreamingChannel implements WritableByteChannel {
+
+    /**
+     * The buffer in filling mode
+     */
+    private final ByteBuffer buffer;
+
+    private final Runnable onReady;
+
+    private long count;
+
+    private boolean starved;
+
+    private boolean finished;
+
+    private boolean cancelled;
+
+    private IOException failure;
+
+    /**
+     * Create an instance with the specified capacity
+     *
+     * @param capacity
+     *            The capacity of buffer in bytes
+     * @param onReady
+     *            The callback to be invoked on the writer thread once there
+     *            are bytes for the starved reader, or the entity is finished
+     *            or failed
+     */
+    StreamingChannel(final int capacity, final Runnable onReady) {
+        this.buffer = ByteBuffer.allocate(capacity);
+        this.onReady = onReady;
+    }
+
+    /**
+     * Write all remaining bytes of the specified buffer, blocks while the
+     * buffer is full
+     *
+     * @throws ClosedChannelException
+     *             if the entity has been finished or the exchange has been
+     *             cancelled
+     */
+    @Override
+    public int write(final ByteBuffer src) throws IOException {
+        final int n = src.remaining();
+
+        while (src.hasRemaining()) {
+            final boolean ready;
+
+            synchronized (this) {
+                while (!this.buffer.hasRemaining() && !this.cancelled) {
+                    try {
+                        wait();
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException();
+                    }
+                }
+
+                if (this.cancelled || this.finished) {
+                    throw new ClosedChannelException();
+                }
+
+                final int limit = src.limit();
+                src.limit(src.position() + Math.min(src.remaining(), this.buffer.remaining()));
+                this.buffer.put(src);
+                src.limit(limit);
+
+                ready = this.starved;
+                this.starved = false;
+            }
+
+            // wake up the reader before waiting for room
+            if (ready) {
+                this.onReady.run();
+            }
+        }
+
+        synchronized (this) {
+            this.count += n;
+        }
+
+        return n;
+    }
+
+    @Override
+    public synchronized boolean isOpen() {
+        return !this.finished && !this.cancelled;
+    }
+
+    /**
+     * Mark the end of entity
+     */
+    @Override
+    public void close() {
+        end(null);
+    }
+
+    /**
+     * Mark the entity as broken, the reader will see the failure on the next
+     * drain
+     */
+    void fail(final IOException e) {
+        end(e);
+    }
+
+    /**
+     * Returns the number of bytes written by the writer
+     */
+    synchronized long getCount() {
+        return this.count;
+    }
+
+    /**
+     * Write the buffered bytes into the specified channel without blocking
+     *
+     * @param channel
+     *            The channel in non-blocking mode
+     * @return the number of bytes written, or -1 if the entity has been
+     *         drained completely
+     * @throws IOException
+     *             if the writer failed or write failed
+     */
+    synchronized int drainTo(final WritableByteChannel channel) throws IOException {
+        if (null != this.failure) {
+            throw this.failure;
+        }
+
+        this.buffer.flip();
+        final int n;
+        try {
+            n = channel.write(this.buffer);
+        } finally {
+            this.buffer.compact();
+        }
+
+        if (n > 0) {
+            notifyAll();
+        }
+
+        if (0 == this.buffer.position()) {
+            if (this.finished) {
+                return -1;
+            }
+            this.starved = true;
+        }
+
+        return n;
+    }
+
+    /**
+     * Determine if the reader is waiting for the writer
+     */
+    synchronized boolean isStarved() {
+        return this.starved;
+    }
+
+    /**
+     * Discard the entity and unblock the writer, invoked by the reader
+     */
+    synchronized void cancel() {
+        this.cancelled = true;
+        notifyAll();
+    }
+
+    private void end(final IOException e) {
+        final boolean ready;
+
+        synchronized (this) {
+            if (this.finished) {
+                return;
+            }
+
+            this.finished = true;
+            this.failure = e;
+            ready = this.starved;
+            this.starved = false;
+        }
+
+        if (ready) {
+            this.onReady.run();
+        }
+    }
+
+}
@@ -0,0 +1,190 @@
+package com.sdklite.net.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+
+/**
+ * The bounded input stream which is fed by the network thread and drained by
+ * the consumer thread
+ *
+ * <p>
+ * The producer stops offering once the buffer is full, and it's notified by
+ * the drain callback after the consumer has freed half of the buffer, so that
+ * a slow consumer applies back pressure on the connection instead of
+ * exhausting the memory.
+ * </p>
+ *
+ * @author johnsonlee
+ *
+ */
+final class StreamingContent extends InputStream {
+
+    private final byte[] buf;
+
+    private final Runnable onDrain;
+
+    private int head;
+
+    private int count;
+
+    private boolean starved;
+
+    private boolean finished;
+
+    private boolean closed;
+
+    private IOException failure;
+
+    /**
+     * Create an instance with the specified capacity
+     *
+     * @param capacity
+     *            The capacity of buffer in bytes
+     * @param onDrain
+     *            The callback to be invoked on the consumer thread once there
+     *            is room for the starved producer, or the stream is closed
+     */
+    StreamingContent(final int capacity, final Runnable onDrain) {
+        this.buf = new byte[capacity];
+        this.onDrain = onDrain;
+    }
+
+    /**
+     * Offer at most the specified number of bytes, the bytes are discarded
+     * if the stream has been closed
+     *
+     * @param src
+     *            The source buffer
+     * @param max
+     *            The maximum number of bytes to offer
+     * @return the number of accepted bytes
+     */
+    synchronized int offer(final ByteBuffer src, final int max) {
+        final int wanted = Math.min(max, src.remaining());
+
+        if (this.closed) {
+            src.position(src.position() + wanted);
+            return wanted;
+        }
+
+        final int n = Math.min(wanted, this.buf.length - this.count);
+        for (int i = 0, tail = (this.head + this.count) % this.buf.length; i < n;) {
+            final int chunk = Math.min(n - i, this.buf.length - tail);
+            src.get(this.buf, tail, chunk);
+            tail = (tail + chunk) % this.buf.length;
+            i += chunk;
+        }
+
+        this.count += n;
+        this.starved = n < wanted;
+        notifyAll();
+        return n;
+    }
+
+    /**
+     * Mark the end of content
+     */
+    synchronized void finish() {
+        this.finished = true;
+        notifyAll();
+    }
+
+    /**
+     * Mark the content as broken, the consumer will see the failure after the
+     * buffered bytes
+     */
+    synchronized void fail(final IOException e) {
+        if (!this.finished) {
+            this.failure = e;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Determine if the consumer has closed this stream
+     */
+    synchronized boolean isClosed() {
+        return this.closed;
+    }
+
+    @Override
+    public int read() throws IOException {
+        final byte[] b = new byte[1];
+        return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        if (0 == len) {
+            return 0;
+        }
+
+        final boolean drained;
+        final int n;
+
+        synchronized (this) {
+            while (0 == this.count && !this.finished && null == this.failure && !this.closed) {
+                try {
+                    wait();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
+            }
+
+            if (this.closed) {
+                throw new IOException("Stream closed");
+            }
+
+            if (0 == this.count) {
+                if (null != this.failure) {
+                    throw this.failure;
+                }
+                return -1;
+            }
+
+            n = Math.min(len, this.count);
+            for (int i = 0; i < n;) {
+                final int chunk = Math.min(n - i, this.buf.length - this.head);
+                System.arraycopy(this.buf, this.head, b, off + i, chunk);
+                this.head = (this.head + chunk) % this.buf.length;
+                i += chunk;
+            }
+
+            this.count -= n;
+            drained = this.starved && this.count <= this.buf.length / 2;
+            if (drained) {
+                this.starved = false;
+            }
+        }
+
+        if (drained) {
+            this.onDrain.run();
+        }
+
+        return n;
+    }
+
+    @Override
+    public synchronized int available() {
+        return this.count;
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (this.closed) {
+                return;
+            }
+
+            this.closed = true;
+            this.count = 0;
+            notifyAll();
+        }
+
+        this.onDrain.run();
+    }
+
+}
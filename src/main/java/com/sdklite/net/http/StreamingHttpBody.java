@@ -0,0 +1,43 @@
+package com.sdklite.net.http;
+
+import java.io.InputStream;
+
+import com.sdklite.net.MimeType;
+
+/**
+ * The response entity which streams the content from the connection, the
+ * content could be consumed only once
+ *
+ * @author johnsonlee
+ *
+ */
+final class StreamingHttpBody extends HttpBody {
+
+    private final MimeType contentType;
+
+    private final long contentLength;
+
+    private final StreamingContent content;
+
+    StreamingHttpBody(final MimeType contentType, final long contentLength, final StreamingContent content) {
+        this.contentType = contentType;
+        this.contentLength = contentLength;
+        this.content = content;
+    }
+
+    @Override
+    public MimeType getContentType() {
+        return this.contentType;
+    }
+
+    @Override
+    public long getContentLength() {
+        return this.contentLength;
+    }
+
+    @Override
+    public InputStream getContent() {
+        return this.content;
+    }
+
+}
@@ -4,6 +4,7 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 
 import com.sdklite.net.MimeType;
@@ -31,6 +32,11 @@ class StringPartBody extends PartBody {
         return new ByteArrayInputStream(this.text);
     }
 
+    @Override
+    ByteBuffer getBuffer() {
+        return ByteBuffer.wrap(this.text).asReadOnlyBuffer();
+    }
+
     @Override
     public long getContentLength() {
         return this.text.length;
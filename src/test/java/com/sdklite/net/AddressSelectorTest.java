@@ -0,0 +1,105 @@
+package com.sdklite.net;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class AddressSelectorTest {
+
+    private static InetAddress address(final String literal) throws UnknownHostException {
+        return InetAddress.getByName(literal);
+    }
+
+    @Test
+    public void addressesShouldBeSortedByRfc6724() throws UnknownHostException {
+        final List<InetAddress> addresses = Arrays.asList(
+                address("10.0.0.1"),
+                address("2002:c000:0204::1"),
+                address("2001:db8::1"),
+                address("fe80::1"),
+                address("fd00::1"),
+                address("192.0.2.1"),
+                address("::1"));
+        final List<InetAddress> sorted = AddressSelector.RFC_6724.select("example.com", addresses);
+        assertEquals(Arrays.asList(
+                address("::1"),
+                address("fe80::1"),
+                address("2001:db8::1"),
+                address("10.0.0.1"),
+                address("192.0.2.1"),
+                address("2002:c000:0204::1"),
+                address("fd00::1")), sorted);
+    }
+
+    @Test
+    public void addressesShouldBeRotated() throws UnknownHostException {
+        final List<InetAddress> addresses = Arrays.asList(address("10.0.0.1"), address("10.0.0.2"), address("10.0.0.3"));
+        final RoundRobinAddressSelector selector = new RoundRobinAddressSelector();
+        final Set<InetAddress> firsts = new HashSet<InetAddress>();
+
+        for (int i = 0; i < 3; i++) {
+            final List<InetAddress> selected = selector.select("example.com", addresses);
+            assertEquals(3, new HashSet<InetAddress>(selected).size());
+            firsts.add(selected.get(0));
+        }
+
+        assertEquals(3, firsts.size());
+        assertEquals(address("10.0.0.1"), selector.select("example.com", addresses).get(0));
+        assertEquals(address("10.0.0.1"), selector.select("another.example.com", addresses).get(0));
+    }
+
+    @Test
+    public void fasterAddressesShouldBePreferred() throws UnknownHostException {
+        final InetAddress fast = address("10.0.0.1");
+        final InetAddress slow = address("10.0.0.2");
+        final InetAddress broken = address("10.0.0.3");
+        final List<InetAddress> addresses = Arrays.asList(broken, slow, fast);
+
+        final LatencyWeightedAddressSelector selector = new LatencyWeightedAddressSelector();
+        selector.recordConnectTime(fast, 10, TimeUnit.MILLISECONDS);
+        selector.recordConnectTime(slow, 200, TimeUnit.MILLISECONDS);
+        selector.recordFailure(broken);
+        assertEquals(10, selector.getLatency(fast, TimeUnit.MILLISECONDS));
+
+        int fastFirst = 0;
+        for (int i = 0; i < 1000; i++) {
+            final List<InetAddress> selected = selector.select("example.com", addresses);
+            assertEquals(3, new HashSet<InetAddress>(selected).size());
+            if (fast.equals(selected.get(0))) {
+                fastFirst++;
+            } else {
+                assertEquals(fast, selected.get(1));
+            }
+        }
+
+        assertTrue(fastFirst > 900);
+    }
+
+    @Test
+    public void unobservedAddressesShouldBeExplored() throws UnknownHostException {
+        final InetAddress known = address("10.0.0.1");
+        final InetAddress unknown = address("10.0.0.2");
+        final LatencyWeightedAddressSelector selector = new LatencyWeightedAddressSelector();
+        selector.recordConnectTime(known, 50, TimeUnit.MILLISECONDS);
+
+        int unknownFirst = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (unknown.equals(selector.select("example.com", Arrays.asList(known, unknown)).get(0))) {
+                unknownFirst++;
+            }
+        }
+
+        assertTrue(unknownFirst > 300 && unknownFirst < 700);
+        assertEquals(-1, selector.getLatency(unknown, TimeUnit.MILLISECONDS));
+    }
+
+}
@@ -0,0 +1,175 @@
+package com.sdklite.net;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class CachingDnsResolverTest {
+
+    private static final class CountingResolver implements DnsResolver {
+
+        final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public List<InetAddress> resolve(final String hostname) throws UnknownHostException {
+            final int n = this.count.incrementAndGet();
+            if (hostname.startsWith("unknown")) {
+                throw new UnknownHostException(hostname);
+            }
+            return Arrays.asList(InetAddress.getByAddress(hostname, new byte[] { 10, 0, 0, (byte) n }));
+        }
+    }
+
+    private static final class QueuedExecutor implements Executor {
+
+        final List<Runnable> tasks = new ArrayList<Runnable>();
+
+        @Override
+        public void execute(final Runnable command) {
+            this.tasks.add(command);
+        }
+
+        void runAll() {
+            for (final Runnable task : this.tasks) {
+                task.run();
+            }
+            this.tasks.clear();
+        }
+    }
+
+    @Test
+    public void freshEntryShouldBeServedFromCache() throws UnknownHostException {
+        final CountingResolver delegate = new CountingResolver();
+        final CachingDnsResolver resolver = new CachingDnsResolver.Builder(delegate).build();
+        final List<InetAddress> addresses = resolver.resolve("example.com");
+        assertSame(addresses, resolver.resolve("example.com"));
+        assertEquals(1, delegate.count.get());
+        assertEquals(1, resolver.getHitCount());
+        assertEquals(1, resolver.getMissCount());
+        assertEquals(0.5, resolver.getHitRate(), 0);
+    }
+
+    @Test
+    public void failureShouldBeCachedForNegativeTtl() throws UnknownHostException {
+        final CountingResolver delegate = new CountingResolver();
+        final CachingDnsResolver resolver = new CachingDnsResolver.Builder(delegate).build();
+
+        for (int i = 0; i < 3; i++) {
+            try {
+                resolver.resolve("unknown.example.com");
+                fail();
+            } catch (final UnknownHostException e) {
+                assertEquals("unknown.example.com", e.getMessage());
+            }
+        }
+
+        assertEquals(1, delegate.count.get());
+    }
+
+    @Test
+    public void expiredFailureShouldBeResolvedAgain() {
+        final CountingResolver delegate = new CountingResolver();
+        final CachingDnsResolver resolver = new CachingDnsResolver.Builder(delegate).setNegativeTtl(0, TimeUnit.SECONDS).build();
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                resolver.resolve("unknown.example.com");
+                fail();
+            } catch (final UnknownHostException e) {
+            }
+        }
+
+        assertEquals(2, delegate.count.get());
+    }
+
+    @Test
+    public void staleEntryShouldBeServedWhileRefreshing() throws UnknownHostException {
+        final CountingResolver delegate = new CountingResolver();
+        final QueuedExecutor executor = new QueuedExecutor();
+        final CachingDnsResolver resolver = new CachingDnsResolver.Builder(delegate)
+                .setTtl(0, TimeUnit.SECONDS)
+                .setMaxStale(1, TimeUnit.MINUTES)
+                .setExecutor(executor)
+                .build();
+
+        final List<InetAddress> stale = resolver.resolve("example.com");
+        assertSame(stale, resolver.resolve("example.com"));
+        assertSame(stale, resolver.resolve("example.com"));
+        assertEquals(1, executor.tasks.size());
+        assertEquals(2, resolver.getStaleHitCount());
+
+        executor.runAll();
+        assertEquals(2, delegate.count.get());
+        assertEquals(1, resolver.getRefreshCount());
+        assertEquals(2, resolver.resolve("example.com").get(0).getAddress()[3]);
+        assertTrue(resolver.getAverageRefreshLatency(TimeUnit.NANOSECONDS) >= 0);
+    }
+
+    @Test
+    public void expiredEntryShouldBeResolvedWithoutStalePeriod() throws UnknownHostException {
+        final CountingResolver delegate = new CountingResolver();
+        final CachingDnsResolver resolver = new CachingDnsResolver.Builder(delegate)
+                .setTtl(0, TimeUnit.SECONDS)
+                .setMaxStale(0, TimeUnit.SECONDS)
+                .build();
+        resolver.resolve("example.com");
+        resolver.resolve("example.com");
+        assertEquals(2, delegate.count.get());
+        assertEquals(0, resolver.getStaleHitCount());
+    }
+
+    @Test
+    public void hostTtlShouldOverrideDefaultTtl() throws UnknownHostException {
+        final CountingResolver delegate = new CountingResolver();
+        final CachingDnsResolver resolver = new CachingDnsResolver.Builder(delegate)
+                .setTtl("Volatile.example.com", 0, TimeUnit.SECONDS)
+                .setMaxStale(0, TimeUnit.SECONDS)
+                .build();
+        resolver.resolve("volatile.example.com");
+        resolver.resolve("volatile.example.com");
+        resolver.resolve("stable.example.com");
+        resolver.resolve("stable.example.com");
+        assertEquals(3, delegate.count.get());
+    }
+
+    @Test
+    public void cacheShouldBeBounded() throws UnknownHostException {
+        final CachingDnsResolver resolver = new CachingDnsResolver.Builder(new CountingResolver()).setMaxSize(8).build();
+        for (int i = 0; i < 100; i++) {
+            resolver.resolve("host" + i + ".example.com");
+            assertTrue(resolver.size() <= 8);
+        }
+    }
+
+    @Test
+    public void evictionShouldMakeRoomForSubsequentInsertions() throws UnknownHostException {
+        final CountingResolver delegate = new CountingResolver();
+        final CachingDnsResolver resolver = new CachingDnsResolver.Builder(delegate).setMaxSize(8).build();
+        for (int i = 0; i < 9; i++) {
+            resolver.resolve("host" + i + ".example.com");
+        }
+
+        assertEquals(6, resolver.size());
+        resolver.resolve("host8.example.com");
+        assertEquals(1, resolver.getHitCount());
+
+        // the next insertions don't scan until the cache is full again
+        for (int i = 9; i < 11; i++) {
+            resolver.resolve("host" + i + ".example.com");
+        }
+        assertEquals(8, resolver.size());
+    }
+
+}
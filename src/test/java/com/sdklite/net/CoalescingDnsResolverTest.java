@@ -0,0 +1,118 @@
+package com.sdklite.net;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.Test;
+
+public class CoalescingDnsResolverTest {
+
+    private static final class BlockingResolver implements DnsResolver {
+
+        final AtomicInteger count = new AtomicInteger();
+
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        @Override
+        public List<InetAddress> resolve(final String hostname) throws UnknownHostException {
+            this.count.incrementAndGet();
+
+            try {
+                this.latch.await();
+            } catch (final InterruptedException e) {
+                throw new UnknownHostException(hostname);
+            }
+
+            if (hostname.startsWith("unknown")) {
+                throw new UnknownHostException(hostname);
+            }
+
+            return Arrays.asList(InetAddress.getByAddress(hostname, new byte[] { 127, 0, 0, 1 }));
+        }
+    }
+
+    @Test
+    public void concurrentLookupsShouldBeCoalesced() throws Exception {
+        final BlockingResolver delegate = new BlockingResolver();
+        final CoalescingDnsResolver resolver = new CoalescingDnsResolver(delegate);
+        final CompletableFuture<List<InetAddress>> first = resolver.resolveAsync("example.com");
+
+        for (int i = 0; i < 10000; i++) {
+            assertNotSame(first, resolver.resolveAsync("example.com"));
+        }
+
+        assertEquals(1, resolver.getInflightCount());
+        delegate.latch.countDown();
+        assertEquals("example.com", first.get(5, TimeUnit.SECONDS).get(0).getHostName());
+        assertEquals(1, delegate.count.get());
+        assertEquals(0, resolver.getInflightCount());
+    }
+
+    @Test
+    public void cancellationShouldNotAffectOtherCallers() throws Exception {
+        final BlockingResolver delegate = new BlockingResolver();
+        final CoalescingDnsResolver resolver = new CoalescingDnsResolver(delegate);
+        final CompletableFuture<List<InetAddress>> first = resolver.resolveAsync("example.com");
+        final CompletableFuture<CompletableFuture<List<InetAddress>>> second = CompletableFuture.supplyAsync(new Supplier<CompletableFuture<List<InetAddress>>>() {
+            @Override
+            public CompletableFuture<List<InetAddress>> get() {
+                return resolver.resolveAsync("example.com");
+            }
+        });
+
+        assertTrue(second.get(5, TimeUnit.SECONDS).complete(null));
+        final CompletableFuture<List<InetAddress>> third = resolver.resolveAsync("example.com");
+        assertTrue(first.cancel(false));
+        assertEquals(1, resolver.getInflightCount());
+
+        delegate.latch.countDown();
+        assertEquals("example.com", third.get(5, TimeUnit.SECONDS).get(0).getHostName());
+        assertEquals(1, delegate.count.get());
+        assertTrue(first.isCancelled());
+    }
+
+    @Test
+    public void completedLookupShouldNotBeReused() throws Exception {
+        final BlockingResolver delegate = new BlockingResolver();
+        delegate.latch.countDown();
+        final CoalescingDnsResolver resolver = new CoalescingDnsResolver(delegate);
+        resolver.resolveAsync("example.com").get(5, TimeUnit.SECONDS);
+        resolver.resolveAsync("example.com").get(5, TimeUnit.SECONDS);
+        assertEquals(2, delegate.count.get());
+    }
+
+    @Test
+    public void failureShouldCompleteExceptionally() throws Exception {
+        final BlockingResolver delegate = new BlockingResolver();
+        delegate.latch.countDown();
+        final CoalescingDnsResolver resolver = new CoalescingDnsResolver(delegate);
+
+        try {
+            resolver.resolveAsync("unknown.example.com").get(5, TimeUnit.SECONDS);
+            fail();
+        } catch (final ExecutionException e) {
+            assertTrue(e.getCause() instanceof UnknownHostException);
+        }
+
+        try {
+            resolver.resolve("unknown.example.com");
+            fail();
+        } catch (final UnknownHostException e) {
+            assertEquals("unknown.example.com", e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,49 @@
+package com.sdklite.net;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.sdklite.net.http.ContentNegotiator;
+
+public class ContentNegotiatorTest {
+
+    private static final MimeType JSON = MimeType.parse("application/json");
+
+    private static final MimeType HAL = MimeType.parse("application/hal+json");
+
+    private static final MimeType XML = MimeType.parse("application/xml");
+
+    private static final MimeType HTML = MimeType.parse("text/html");
+
+    @Test
+    public void mediaRangeShouldIncludeMimeType() {
+        assertTrue(MimeType.parse("*/*").includes(JSON));
+        assertTrue(MimeType.parse("application/*").includes(JSON));
+        assertTrue(MimeType.parse("application/*+json").includes(HAL));
+        assertTrue(MimeType.parse("application/*+json").includes(JSON));
+        assertFalse(MimeType.parse("application/*+json").includes(XML));
+        assertFalse(MimeType.parse("application/*+json").includes(MimeType.parse("application/geojson")));
+        assertFalse(MimeType.parse("text/*").includes(JSON));
+        assertFalse(JSON.includes(MimeType.parse("application/*")));
+    }
+
+    @Test
+    public void bestProducibleTypeShouldBeSelected() {
+        final ContentNegotiator negotiator = new ContentNegotiator(JSON, HAL, XML, HTML);
+        assertSame(JSON, negotiator.negotiate((String) null));
+        assertSame(JSON, negotiator.negotiate("*/*"));
+        assertSame(HTML, negotiator.negotiate("text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8"));
+        assertSame(XML, negotiator.negotiate("application/json;q=0.5, application/xml"));
+        assertSame(HAL, negotiator.negotiate("application/*+json;q=0.9, application/json;q=0.1"));
+        assertSame(XML, negotiator.negotiate("application/*, application/json;q=0, application/hal+json;q=0"));
+        assertNull(negotiator.negotiate("image/png"));
+        assertNull(negotiator.negotiate("image/png"));
+        assertEquals(4, negotiator.getProducibleTypes().size());
+    }
+
+}
@@ -2,14 +2,19 @@ package com.sdklite.net;
 
 import static org.junit.Assert.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 import org.junit.Test;
 
 import com.sdklite.io.IOUtil;
 import com.sdklite.net.http.FormBody;
+import com.sdklite.net.http.FormUrlDecoder;
 
 public class FormBodyTest {
 
@@ -55,5 +60,72 @@ public class FormBodyTest {
                 .build();
         assertEquals("version=1.0&version=2.0&version=3.0&version=4.0", IOUtil.readFully(new InputStreamReader(form.getContent())));
     }
-    
+
+    @Test
+    public void formBodyContentLengthShouldBeExact() throws IOException {
+        final FormBody form = new FormBody.Builder()
+                .add("name", "John Smith", "a&b=c")
+                .add("empty")
+                .add("\u4e2d\u6587", "caf\u00e9", "\ud83d\ude00", "\ud83d")
+                .build();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        form.writeTo(out);
+        assertEquals(out.size(), form.getContentLength());
+    }
+
+    @Test
+    public void formBodyShouldBeEncodedAsUrlEncoder() throws IOException {
+        final StringBuilder chars = new StringBuilder();
+        for (char c = 0; c < 0x800; c++) {
+            chars.append(c);
+        }
+        chars.append("\u4e2d\u6587\ud83d\ude00\ud83d?\ude00\uffff");
+
+        final FormBody form = new FormBody.Builder()
+                .add(chars.toString(), chars.toString())
+                .build();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        form.writeTo(out);
+        assertEquals(URLEncoder.encode(chars.toString(), "UTF-8") + "=" + URLEncoder.encode(chars.toString(), "UTF-8"), new String(out.toByteArray(), "US-ASCII"));
+    }
+
+    @Test
+    public void formBodyShouldBeParsedProperly() throws IOException {
+        final FormBody form = new FormBody.Builder()
+                .add("name", "John Smith", "a&b=c")
+                .add("\u4e2d\u6587", "caf\u00e9 100%")
+                .build();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        form.writeTo(out);
+
+        final FormBody parsed = FormBody.parse(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(form.getNames(), parsed.getNames());
+        assertEquals(Arrays.asList("John Smith", "a&b=c"), parsed.getValues("name"));
+        assertEquals(Arrays.asList("caf\u00e9 100%"), parsed.getValues("\u4e2d\u6587"));
+    }
+
+    @Test
+    public void formBodyShouldBeDecodedInChunks() throws IOException {
+        final byte[] body = "a=%E4%B8%AD&&b&c=1=2".getBytes("US-ASCII");
+        final FormUrlDecoder decoder = new FormUrlDecoder();
+        for (int i = 0; i < body.length; i++) {
+            decoder.decode(ByteBuffer.wrap(body, i, 1));
+        }
+
+        final FormBody form = decoder.finish();
+        assertEquals(Arrays.asList("\u4e2d"), form.getValues("a"));
+        assertEquals(Arrays.asList(""), form.getValues("b"));
+        assertEquals(Arrays.asList("1=2"), form.getValues("c"));
+    }
+
+    @Test(expected = IOException.class)
+    public void formBodyWithTooManyFieldsShouldBeRejected() throws IOException {
+        new FormUrlDecoder(2, 16, 1024).decode(ByteBuffer.wrap("a=1&b=2&c=3".getBytes("US-ASCII"))).finish();
+    }
+
+    @Test(expected = IOException.class)
+    public void formBodyWithMalformedEscapeShouldBeRejected() throws IOException {
+        FormBody.parse(new ByteArrayInputStream("a=%G0".getBytes("US-ASCII")));
+    }
+
 }
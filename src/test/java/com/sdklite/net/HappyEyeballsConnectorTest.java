@@ -0,0 +1,95 @@
+package com.sdklite.net;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.UnknownHostException;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HappyEyeballsConnectorTest {
+
+    private ServerSocket server;
+
+    private static InetAddress address(final String literal) throws UnknownHostException {
+        return InetAddress.getByName(literal);
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        this.server = new ServerSocket(0, 50, address("127.0.0.1"));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        this.server.close();
+    }
+
+    @Test
+    public void addressesShouldBeInterleavedByFamily() throws UnknownHostException {
+        final List<InetAddress> interleaved = HappyEyeballsConnector.interleave(Arrays.asList(
+                address("::1"), address("::2"), address("::3"), address("10.0.0.1"), address("10.0.0.2")));
+        assertEquals(Arrays.asList(address("::1"), address("10.0.0.1"), address("::2"), address("10.0.0.2"), address("::3")), interleaved);
+    }
+
+    @Test
+    public void refusedAddressShouldFallBack() throws IOException {
+        final LatencyWeightedAddressSelector recorder = new LatencyWeightedAddressSelector();
+        final HappyEyeballsConnector connector = new HappyEyeballsConnector.Builder().setLatencyRecorder(recorder).build();
+        final SocketChannel channel = connector.connect(Arrays.asList(address("::1"), address("127.0.0.1")), this.server.getLocalPort());
+
+        try {
+            assertTrue(channel.isConnected());
+            assertEquals(address("127.0.0.1"), ((InetSocketAddress) channel.socket().getRemoteSocketAddress()).getAddress());
+            assertTrue(recorder.getLatency(address("127.0.0.1"), TimeUnit.NANOSECONDS) > 0);
+        } finally {
+            channel.close();
+        }
+    }
+
+    @Test
+    public void unresponsiveAddressShouldNotDelayConnection() throws IOException {
+        final HappyEyeballsConnector connector = new HappyEyeballsConnector.Builder().setAttemptDelay(100, TimeUnit.MILLISECONDS).build();
+        final long start = System.nanoTime();
+        final SocketChannel channel = connector.connect(Arrays.asList(address("192.0.2.1"), address("127.0.0.1")), this.server.getLocalPort());
+
+        try {
+            assertTrue(channel.isConnected());
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+        } finally {
+            channel.close();
+        }
+    }
+
+    @Test
+    public void unreachableAddressesShouldFail() throws IOException {
+        final int port = this.server.getLocalPort();
+        this.server.close();
+
+        try {
+            new HappyEyeballsConnector.Builder().build().connect(Arrays.asList(address("127.0.0.1"), address("::1")), port);
+            fail();
+        } catch (final IOException e) {
+        }
+    }
+
+    @Test
+    public void hostnameShouldBeResolved() throws IOException {
+        final DnsResolver resolver = new HostsDnsResolver(Collections.singletonMap("app.internal", Arrays.asList(address("127.0.0.1"))), null);
+        final SocketChannel channel = new HappyEyeballsConnector.Builder().setDnsResolver(resolver).build().connect("app.internal", this.server.getLocalPort());
+        channel.close();
+    }
+
+}
@@ -0,0 +1,161 @@
+package com.sdklite.net;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class HostsDnsResolverTest {
+
+    private static final DnsResolver FALLBACK = new DnsResolver() {
+        @Override
+        public List<InetAddress> resolve(final String hostname) throws UnknownHostException {
+            return Collections.singletonList(InetAddress.getByAddress(hostname, new byte[] { 10, 9, 9, 9 }));
+        }
+    };
+
+    private static void write(final File file, final String content) throws IOException {
+        final OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(content.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+    }
+
+    @Test
+    public void staticMappingShouldBeServedWithoutAllocation() throws UnknownHostException {
+        final Map<String, List<InetAddress>> hosts = new HashMap<String, List<InetAddress>>();
+        hosts.put("api.internal", Arrays.asList(InetAddress.getByAddress("api.internal", new byte[] { 10, 0, 0, 1 })));
+
+        final HostsDnsResolver resolver = new HostsDnsResolver(hosts, FALLBACK);
+        final List<InetAddress> addresses = resolver.resolve("api.internal");
+        assertSame(addresses, resolver.resolve("API.Internal"));
+        assertEquals("10.0.0.1", addresses.get(0).getHostAddress());
+        assertEquals("10.9.9.9", resolver.resolve("www.example.com").get(0).getHostAddress());
+    }
+
+    @Test
+    public void missWithoutDelegateShouldFail() {
+        try {
+            new HostsDnsResolver(Collections.<String, List<InetAddress>>emptyMap(), null).resolve("unknown.internal");
+            fail();
+        } catch (final UnknownHostException e) {
+            assertEquals("unknown.internal", e.getMessage());
+        }
+    }
+
+    @Test
+    public void nullHostnameShouldNotBeLookedUp() throws UnknownHostException {
+        final HostsDnsResolver resolver = new HostsDnsResolver(Collections.<String, List<InetAddress>>emptyMap(), null);
+
+        try {
+            resolver.resolve(null);
+            fail();
+        } catch (final UnknownHostException e) {
+        }
+
+        assertEquals("10.9.9.9", new HostsDnsResolver(Collections.<String, List<InetAddress>>emptyMap(), FALLBACK).resolve(null).get(0).getHostAddress());
+    }
+
+    @Test
+    public void clearedHostsFileShouldRemoveMappings() throws IOException {
+        final File file = File.createTempFile("hosts", null);
+        file.deleteOnExit();
+        write(file, "10.0.0.1 app.internal\n");
+
+        final HostsDnsResolver resolver = new HostsDnsResolver(file, null);
+        try {
+            assertEquals("10.0.0.1", resolver.resolve("app.internal").get(0).getHostAddress());
+
+            write(file, "# 10.0.0.1 app.internal\n");
+            resolver.reload();
+
+            try {
+                resolver.resolve("app.internal");
+                fail();
+            } catch (final UnknownHostException e) {
+            }
+
+            write(file, "");
+            resolver.reload();
+
+            try {
+                resolver.resolve("app.internal");
+                fail();
+            } catch (final UnknownHostException e) {
+            }
+
+            write(file, "10.0.0.2 app.internal\n");
+            resolver.reload();
+            assertEquals("10.0.0.2", resolver.resolve("app.internal").get(0).getHostAddress());
+        } finally {
+            resolver.close();
+        }
+    }
+
+    @Test
+    public void hostsFileShouldBeParsed() throws IOException {
+        final File file = File.createTempFile("hosts", null);
+        file.deleteOnExit();
+        write(file, "# comment\n127.0.0.1\tlocalhost loopback\n::1 localhost # inline comment\n\nnot-an-ip bogus\n10.0.0.2 db.internal\n10.0.0.3 db.internal\n");
+
+        final HostsDnsResolver resolver = new HostsDnsResolver(file, null);
+        try {
+            final List<InetAddress> localhost = resolver.resolve("localhost");
+            assertEquals(2, localhost.size());
+            assertEquals("127.0.0.1", localhost.get(0).getHostAddress());
+            assertEquals(16, localhost.get(1).getAddress().length);
+            assertEquals("loopback", resolver.resolve("loopback").get(0).getHostName());
+            assertEquals(2, resolver.resolve("db.internal").size());
+
+            try {
+                resolver.resolve("bogus");
+                fail();
+            } catch (final UnknownHostException e) {
+            }
+        } finally {
+            resolver.close();
+        }
+    }
+
+    @Test
+    public void hostsFileShouldBeReloadedOnChange() throws Exception {
+        final File dir = File.createTempFile("hosts", null);
+        dir.delete();
+        dir.mkdirs();
+        final File file = new File(dir, "hosts");
+        write(file, "10.0.0.1 app.internal\n");
+
+        final HostsDnsResolver resolver = new HostsDnsResolver(file, null);
+        try {
+            assertEquals("10.0.0.1", resolver.resolve("app.internal").get(0).getHostAddress());
+            write(file, "10.0.0.2 app.internal\n");
+
+            final long deadline = System.currentTimeMillis() + 30000;
+            while (!"10.0.0.2".equals(resolver.resolve("app.internal").get(0).getHostAddress()) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+
+            assertEquals("10.0.0.2", resolver.resolve("app.internal").get(0).getHostAddress());
+        } finally {
+            resolver.close();
+            file.delete();
+            dir.delete();
+        }
+    }
+
+}
@@ -0,0 +1,239 @@
+package com.sdklite.net;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+
+import org.junit.Test;
+
+import com.sdklite.net.http.Http1Codec;
+import com.sdklite.net.http.HttpBody;
+import com.sdklite.net.http.HttpHeaderName;
+import com.sdklite.net.http.HttpMethod;
+import com.sdklite.net.http.HttpRequest;
+import com.sdklite.net.http.HttpResponse;
+
+public class Http1CodecTest {
+
+    private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
+    private static String toString(final ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return new String(bytes, ISO_8859_1);
+    }
+
+    private static ByteBuffer copy(final ByteBuffer buffer) {
+        final ByteBuffer copy = ByteBuffer.allocate(buffer.remaining());
+        copy.put(buffer.duplicate()).flip();
+        return copy;
+    }
+
+    @Test
+    public void requestShouldBeEncoded() throws IOException {
+        final HttpRequest request = new HttpRequest.Builder()
+                .setMethod(HttpMethod.POST)
+                .setUrl("http://user@example.com:8080/api/items?q=1#top")
+                .addHeader("content-type", "application/json")
+                .addHeader("X-Request-Id", "42")
+                .setEntity(HttpBody.newInstance("text/plain", "hello"))
+                .build();
+        assertEquals("POST /api/items?q=1 HTTP/1.1\r\n"
+                + "Host: example.com:8080\r\n"
+                + "Content-Type: application/json\r\n"
+                + "X-Request-Id: 42\r\n"
+                + "Content-Length: 5\r\n"
+                + "\r\n", toString(new Http1Codec().encode(request)));
+    }
+
+    @Test
+    public void emptyPathShouldBeEncodedAsSlash() throws IOException {
+        final Http1Codec codec = new Http1Codec();
+        assertTrue(toString(codec.encode(new HttpRequest.Builder().setMethod(HttpMethod.GET).setUrl("http://example.com").build())).startsWith("GET / HTTP/1.1\r\nHost: example.com\r\n"));
+        assertTrue(toString(codec.encode(new HttpRequest.Builder().setMethod(HttpMethod.GET).setUrl("http://example.com?a=b").build())).startsWith("GET /?a=b HTTP/1.1\r\nHost: example.com\r\n"));
+        assertTrue(toString(codec.encode(new HttpRequest.Builder().setMethod(HttpMethod.PUT).setUrl("https://example.com/x").build())).contains("Content-Length: 0\r\n"));
+    }
+
+    @Test
+    public void absentMethodShouldBeEncodedAsGet() throws IOException {
+        assertTrue(toString(new Http1Codec().encode(new HttpRequest.Builder().setUrl("http://example.com/").build())).startsWith("GET / HTTP/1.1\r\n"));
+    }
+
+    @Test
+    public void copiedMessageShouldBeEncodedAsOriginal() throws IOException {
+        final Http1Codec codec = new Http1Codec();
+        final HttpRequest request = new HttpRequest.Builder().setMethod(HttpMethod.DELETE).setUrl("http://example.com/items/1").build();
+        assertEquals(toString(codec.encode(request)), toString(codec.encode(request.newBuilder().build())));
+
+        final HttpResponse response = new HttpResponse.Builder().setStatusCode(404).setReasonPhrase("Not Found").build();
+        final HttpResponse copy = response.newBuilder().addHeader("X-Copied", "1").build();
+        assertEquals(404, copy.getStatusCode());
+        assertEquals("Not Found", copy.getReasonPhrase());
+        assertTrue(toString(codec.encode(copy)).startsWith("HTTP/1.1 404 Not Found\r\n"));
+    }
+
+    @Test
+    public void entityOfUnknownLengthShouldBeChunked() throws IOException {
+        final byte[] content = new byte[300];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) ('a' + i % 26);
+        }
+
+        final HttpResponse response = new HttpResponse.Builder().setStatusCode(200).setReasonPhrase("OK").setEntity(new HttpBody() {
+            @Override
+            public MimeType getContentType() {
+                return null;
+            }
+
+            @Override
+            public long getContentLength() {
+                return -1;
+            }
+
+            @Override
+            public InputStream getContent() {
+                return new ByteArrayInputStream(content);
+            }
+        }).build();
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final WritableByteChannel channel = Channels.newChannel(out);
+        channel.write(new Http1Codec().encode(response));
+
+        final WritableByteChannel chunked = Http1Codec.newChunkedChannel(channel);
+        chunked.write(ByteBuffer.wrap("hello".getBytes(ISO_8859_1)));
+        assertEquals(0, chunked.write(ByteBuffer.allocate(0)));
+        chunked.write(ByteBuffer.wrap(content));
+        chunked.close();
+        assertTrue(channel.isOpen());
+
+        try {
+            chunked.write(ByteBuffer.wrap(content));
+            fail();
+        } catch (final ClosedChannelException e) {
+        }
+
+        assertEquals("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n"
+                + "5\r\nhello\r\n"
+                + "12c\r\n" + new String(content, ISO_8859_1) + "\r\n"
+                + "0\r\n\r\n", new String(out.toByteArray(), ISO_8859_1));
+    }
+
+    @Test
+    public void headerInjectionShouldBeRejected() throws IOException {
+        try {
+            new Http1Codec().encode(new HttpRequest.Builder().setMethod(HttpMethod.GET).setUrl("http://example.com/").addHeader("X-Evil", "a\r\nX-Injected: b").build());
+            fail();
+        } catch (final IllegalArgumentException e) {
+        }
+    }
+
+    @Test
+    public void largeHeadersShouldGrowBuffer() throws IOException {
+        final StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            value.append('v');
+        }
+
+        final Http1Codec codec = new Http1Codec();
+        final ByteBuffer encoded = codec.encode(new HttpRequest.Builder().setMethod(HttpMethod.GET).setUrl("http://example.com/").addHeader("X-Large", value.toString()).build());
+        assertTrue(encoded.isDirect());
+        assertEquals(value.toString(), codec.decodeRequest(copy(encoded)).getHeader("X-Large"));
+    }
+
+    @Test
+    public void requestShouldRoundTrip() throws IOException {
+        final Http1Codec codec = new Http1Codec();
+
+        for (final HttpMethod method : HttpMethod.values()) {
+            final HttpRequest request = new HttpRequest.Builder()
+                    .setMethod(method)
+                    .setUrl("http://example.com/path?x=y")
+                    .addHeader("Accept", "*/*")
+                    .addHeader("Set-Cookie", "a=1")
+                    .addHeader("Set-Cookie", "b=2")
+                    .build();
+            final HttpRequest decoded = codec.decodeRequest(copy(codec.encode(request)));
+            assertSame(method, decoded.getMethod());
+            assertEquals("http://example.com/path?x=y", decoded.getUrl());
+            assertEquals("*/*", decoded.getHeader(HttpHeaderName.ACCEPT));
+            assertEquals(2, decoded.getHeaders("set-cookie").size());
+        }
+    }
+
+    @Test
+    public void responseShouldRoundTripInChunks() throws IOException {
+        final HttpResponse response = new HttpResponse.Builder()
+                .setStatusCode(404)
+                .setReasonPhrase("Not Found")
+                .addHeader("Content-Type", "text/plain")
+                .setEntity(HttpBody.newInstance("text/plain", "missing"))
+                .build();
+
+        final Http1Codec codec = new Http1Codec();
+        final ByteBuffer encoded = copy(codec.encode(response));
+        assertEquals("HTTP/1.1 404 Not Found\r\nContent-Type: text/plain\r\nContent-Length: 7\r\n\r\n", toString(encoded));
+
+        for (int size = 1; size <= encoded.remaining(); size++) {
+            HttpResponse decoded = null;
+            for (int i = 0; i < encoded.remaining() && null == decoded; i += size) {
+                decoded = codec.decodeResponse(ByteBuffer.wrap(encoded.array(), i, Math.min(size, encoded.remaining() - i)));
+            }
+
+            assertEquals(Http1Codec.HTTP_1_1, decoded.getProtocol());
+            assertEquals(404, decoded.getStatusCode());
+            assertEquals("Not Found", decoded.getReasonPhrase());
+            assertEquals("7", decoded.getHeader(HttpHeaderName.CONTENT_LENGTH));
+        }
+    }
+
+    @Test
+    public void statusLineShouldBeDecoded() throws IOException {
+        final Http1Codec codec = new Http1Codec();
+        final ByteBuffer chunk = ByteBuffer.wrap("HTTP/1.0 200 OK\r\nServer: test\r\n\r\nbody".getBytes("ISO-8859-1"));
+        final HttpResponse response = codec.decodeResponse(chunk);
+        assertSame(Http1Codec.HTTP_1_0, response.getProtocol());
+        assertEquals(200, response.getStatusCode());
+        assertEquals("OK", response.getReasonPhrase());
+        assertEquals(4, chunk.remaining());
+
+        assertEquals("", codec.decodeResponse(ByteBuffer.wrap("HTTP/1.1 204\r\n\r\n".getBytes("ISO-8859-1"))).getReasonPhrase());
+        assertNull(codec.decodeResponse(ByteBuffer.wrap("HTTP/1.1 2".getBytes("ISO-8859-1"))));
+        codec.reset();
+
+        final String[] malformed = { "HTTP/2.0 200 OK\r\n", "HTTP/1.1 2x0 OK\r\n", "HTTP/1.1 200OK\r\n", "HTTP/1.1\r\n" };
+        for (final String line : malformed) {
+            try {
+                codec.decodeResponse(ByteBuffer.wrap(line.getBytes("ISO-8859-1")));
+                fail(line);
+            } catch (final IOException e) {
+                codec.reset();
+            }
+        }
+    }
+
+    @Test
+    public void unknownMethodShouldBeRejected() throws IOException {
+        final String[] malformed = { "BREW /pot HTTP/1.1\r\n", "GETS / HTTP/1.1\r\n", "GET / HTTP/3\r\n", "GET\r\n" };
+        for (final String line : malformed) {
+            try {
+                new Http1Codec().decodeRequest(ByteBuffer.wrap(line.getBytes("ISO-8859-1")));
+                fail(line);
+            } catch (final IOException e) {
+            }
+        }
+    }
+
+}
@@ -0,0 +1,129 @@
+package com.sdklite.net;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.sdklite.net.http.HttpHeader;
+import com.sdklite.net.http.HttpHeaderName;
+import com.sdklite.net.http.HttpHeaderParser;
+import com.sdklite.net.http.HttpHeaders;
+import com.sdklite.net.http.HttpResponse;
+
+public class HttpHeaderParserTest {
+
+    private static final String BLOCK = "Content-Type: text/html; charset=UTF-8\r\n"
+            + "content-length:   11  \r\n"
+            + "X-Trace-Id:abc\r\n"
+            + "Set-Cookie: a=1\n"
+            + "Set-Cookie: b=2\r\n"
+            + "X-Empty:\r\n"
+            + "\r\n";
+
+    private static final String BODY = "hello world";
+
+    private static void assertHeaders(final List<HttpHeader> headers) {
+        assertEquals(6, headers.size());
+        assertSame(HttpHeaderName.CONTENT_TYPE.getName(), headers.get(0).getName());
+        assertEquals("text/html; charset=UTF-8", headers.get(0).getValue());
+        assertSame(HttpHeaderName.CONTENT_LENGTH.getName(), headers.get(1).getName());
+        assertEquals("11", headers.get(1).getValue());
+        assertEquals("X-Trace-Id", headers.get(2).getName());
+        assertEquals("abc", headers.get(2).getValue());
+        assertEquals("b=2", headers.get(4).getValue());
+        assertEquals("", headers.get(5).getValue());
+    }
+
+    @Test
+    public void completeBlockShouldBeParsedWithoutCopying() throws IOException {
+        final byte[] buf = (BLOCK + BODY).getBytes("ISO-8859-1");
+        final List<HttpHeader> headers = HttpHeaderParser.parse(buf, 0, buf.length);
+        assertHeaders(headers);
+
+        final HttpResponse.Builder builder = new HttpResponse.Builder();
+        builder.addHeaders(headers);
+        final HttpResponse response = builder.build();
+        assertEquals(11, HttpHeaders.getContentLength(response));
+        assertEquals(2, response.getHeaders(HttpHeaderName.SET_COOKIE).size());
+    }
+
+    @Test
+    public void blockSplitAcrossReadsShouldBeParsed() throws IOException {
+        final byte[] buf = (BLOCK + BODY).getBytes("ISO-8859-1");
+
+        for (int split = 0; split <= buf.length; split++) {
+            final HttpHeaderParser parser = new HttpHeaderParser();
+            final ByteBuffer first = ByteBuffer.wrap(buf, 0, split);
+            final boolean complete = parser.parse(first);
+            assertEquals(split >= BLOCK.length(), complete);
+
+            final ByteBuffer rest = ByteBuffer.wrap(buf, complete ? first.position() : split, complete ? buf.length - first.position() : buf.length - split);
+            assertTrue(parser.parse(rest));
+            assertEquals(BODY, new String(buf, rest.position(), rest.remaining(), "ISO-8859-1"));
+            assertHeaders(parser.getHeaders());
+        }
+    }
+
+    @Test
+    public void byteByByteFeedingShouldBeParsed() throws IOException {
+        final byte[] buf = BLOCK.getBytes("ISO-8859-1");
+        final HttpHeaderParser parser = new HttpHeaderParser();
+
+        for (int i = 0; i < buf.length; i++) {
+            assertFalse(parser.isComplete());
+            final ByteBuffer chunk = ByteBuffer.wrap(buf, i, 1);
+            assertEquals(i == buf.length - 1, parser.parse(chunk));
+            assertFalse(chunk.hasRemaining());
+        }
+
+        assertHeaders(parser.getHeaders());
+        parser.reset();
+        assertFalse(parser.isComplete());
+        assertTrue(parser.getHeaders().isEmpty());
+    }
+
+    @Test
+    public void malformedBlockShouldBeRejected() throws IOException {
+        final String[] blocks = {
+            "X-Folded: a\r\n b\r\n\r\n",
+            "No-Colon\r\n\r\n",
+            ": no-name\r\n\r\n",
+            "Bad Name: value\r\n\r\n",
+        };
+
+        for (final String block : blocks) {
+            try {
+                new HttpHeaderParser().parse(ByteBuffer.wrap(block.getBytes("ISO-8859-1")));
+                fail(block);
+            } catch (final IOException e) {
+            }
+        }
+
+        try {
+            HttpHeaderParser.parse(new byte[] { 'A', ':', 'b', '\r', '\n' }, 0, 5);
+            fail();
+        } catch (final IOException e) {
+        }
+    }
+
+    @Test
+    public void oversizedBlockShouldBeRejected() throws IOException {
+        final HttpHeaderParser parser = new HttpHeaderParser(32);
+        assertFalse(parser.parse(ByteBuffer.wrap("X-A: 0123456789\r\n".getBytes("ISO-8859-1"))));
+
+        try {
+            parser.parse(ByteBuffer.wrap("X-B: 0123456789\r\n\r\n".getBytes("ISO-8859-1")));
+            fail();
+        } catch (final IOException e) {
+        }
+    }
+
+}
@@ -0,0 +1,93 @@
+package com.sdklite.net;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.sdklite.net.http.HttpHeader;
+import com.sdklite.net.http.HttpHeaderName;
+import com.sdklite.net.http.HttpHeaders;
+import com.sdklite.net.http.HttpMethod;
+import com.sdklite.net.http.HttpRequest;
+
+public class HttpMessageTest {
+
+    private static HttpRequest newRequest() {
+        final HttpRequest.Builder builder = new HttpRequest.Builder()
+                .setMethod(HttpMethod.GET)
+                .setUrl("http://example.com/")
+                .addHeader("Accept", "text/html")
+                .addHeader("Set-Cookie", "a=1")
+                .addHeader("Content-Length", "42")
+                .addHeader("set-cookie", "b=2");
+
+        for (int i = 0; i < 40; i++) {
+            builder.addHeader("X-Header-" + i, String.valueOf(i));
+        }
+
+        return builder.addHeader("SET-COOKIE", "c=3").build();
+    }
+
+    @Test
+    public void headerShouldBeLookedUpCaseInsensitively() {
+        final HttpRequest request = newRequest();
+        assertEquals("text/html", request.getHeader("accept"));
+        assertEquals("a=1", request.getHeader("Set-Cookie"));
+        assertEquals("39", request.getHeader("x-header-39"));
+        assertNull(request.getHeader("X-Absent"));
+        assertNull(request.getHeader((String) null));
+        assertEquals(42, HttpHeaders.getContentLength(request));
+        assertEquals(45, request.getHeaders().size());
+    }
+
+    @Test
+    public void headersShouldKeepOrderOfOccurrence() {
+        final HttpRequest request = newRequest();
+        final List<HttpHeader> cookies = request.getHeaders("set-cookie");
+        assertEquals(3, cookies.size());
+        assertEquals("a=1", cookies.get(0).getValue());
+        assertEquals("b=2", cookies.get(1).getValue());
+        assertEquals("c=3", cookies.get(2).getValue());
+        assertSame(cookies, request.getHeaders("SET-COOKIE"));
+        assertTrue(request.getHeaders("X-Absent").isEmpty());
+    }
+
+    @Test
+    public void headerMapShouldBeBuiltOnce() {
+        final HttpRequest request = newRequest();
+        final Map<String, List<String>> headers = HttpHeaders.getHeaders(request);
+        assertSame(headers, HttpHeaders.getHeaders(request));
+        assertEquals(Arrays.asList("a=1", "b=2", "c=3"), headers.get("Set-Cookie"));
+        assertEquals(43, headers.size());
+    }
+
+    @Test
+    public void wellKnownHeaderNamesShouldBeSingletons() {
+        assertSame(HttpHeaderName.CONTENT_TYPE, HttpHeaderName.valueOf("content-type"));
+        assertSame(HttpHeaderName.WWW_AUTHENTICATE, HttpHeaderName.valueOf("WWW-Authenticate"));
+        assertEquals("content-length", HttpHeaderName.CONTENT_LENGTH.toLowerCase());
+        assertTrue(HttpHeaderName.ETAG.matches("etag"));
+
+        final HttpHeaderName custom = HttpHeaderName.valueOf("X-Custom");
+        assertEquals("X-Custom", custom.getName());
+        assertEquals(custom, HttpHeaderName.valueOf("x-custom"));
+        assertEquals(custom.hashCode(), HttpHeaderName.valueOf("x-custom").hashCode());
+    }
+
+    @Test
+    public void headerShouldBeLookedUpByName() {
+        final HttpRequest request = newRequest();
+        assertEquals("text/html", request.getHeader(HttpHeaderName.ACCEPT));
+        assertEquals(3, request.getHeaders(HttpHeaderName.SET_COOKIE).size());
+        assertNull(request.getHeader(HttpHeaderName.HOST));
+        assertEquals("7", request.getHeader(HttpHeaderName.valueOf("X-Header-7")));
+    }
+
+}
@@ -1,8 +1,17 @@
 package com.sdklite.net;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.UnsupportedCharsetException;
 
 import org.junit.Test;
 
@@ -15,5 +24,88 @@ public class MimeTypeTest {
         assertEquals("application/xml", MimeType.guess(pom).toString());
         assertEquals("application/xml", MimeType.guess("file://" + pom.getAbsolutePath()).toString());
     }
-    
+
+    @Test
+    public void parsedMimeTypeShouldBeShared() {
+        final long hits = MimeType.getCacheHitCount();
+        assertSame(MimeType.parse("text/plain"), MimeType.parse("text/plain"));
+        assertSame(MimeType.parse("application/vnd.sdklite+json; v=1"), MimeType.parse("application/vnd.sdklite+json; v=1"));
+        assertEquals("application/vnd.sdklite+json; v=1", MimeType.parse("application/vnd.sdklite+json; v=1").toString());
+        assertTrue(MimeType.getCacheHitCount() - hits >= 3);
+    }
+
+    @Test
+    public void mimeTypeShouldBeParsedProperly() {
+        assertEquals("text/plain", MimeType.parse("TEXT/Plain;").toString());
+        assertEquals("text/plain; a=b; c=\"d;e\"", MimeType.parse("text/plain;\ta=b;;c=\"d;e\"").toString());
+        assertEquals("\"d;e\"", MimeType.parse("text/plain; c=\"d;e\"").getParameters().get("c"));
+        assertEquals("d;e", MimeType.parse("text/plain; c=\"d;e\"").getParameter("c"));
+        assertNull(MimeType.parse("text"));
+        assertNull(MimeType.parse(" text/plain"));
+
+        for (final String malformed : new String[] { "text/plain ", "text/plain; a", "text/plain; a=", "text/plain; a=b c", "text/plain; a=\"b" }) {
+            try {
+                MimeType.parse(malformed);
+                fail(malformed);
+            } catch (final MalformedMimeTypeException e) {
+                assertEquals(malformed, e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void charsetShouldBeResolvedProperly() {
+        final MimeType utf8 = MimeType.parse("text/plain; charset=utf8");
+        assertSame(Charset.forName("UTF-8"), utf8.getCharset());
+        assertSame(utf8.getCharset(), utf8.getCharset(null));
+        assertSame(Charset.forName("US-ASCII"), MimeType.parse("text/plain").getCharset());
+        assertNull(MimeType.parse("text/plain").getCharset(null));
+
+        final MimeType unknown = MimeType.parse("text/plain; charset=x-unknown");
+        for (int i = 0; i < 2; i++) {
+            try {
+                unknown.getCharset();
+                fail();
+            } catch (final UnsupportedCharsetException e) {
+                assertEquals("x-unknown", e.getCharsetName());
+            }
+        }
+    }
+
+    @Test
+    public void guessMimeTypeFromExtensionShouldBeOk() {
+        assertSame(MimeType.parse("image/png"), MimeType.guess("a/b/IMAGE.PNG"));
+        assertEquals("application/json", MimeType.guess("https://sdklite.com/a.json?v=1#top").toString());
+        assertNull(MimeType.guess("README"));
+        assertNull(MimeType.guess("a.b/README"));
+        assertNull(MimeType.guess("archive.unknown"));
+        assertSame(MimeType.parse("text/plain"), MimeType.guess("archive.unknown", MimeType.parse("text/plain")));
+
+        final MimeType custom = MimeType.parse("application/x-sdklite");
+        MimeType.register("SDKLITE", custom);
+        assertSame(custom, MimeType.guess("net.sdklite"));
+    }
+
+    @Test
+    public void sniffMimeTypeFromMagicBytesShouldBeOk() throws IOException {
+        final MimeType unknown = MimeType.parse("application/octet-stream");
+        final byte[] png = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n', 0, 0 };
+        final byte[] mp4 = { 0, 0, 0, 0x18, 'f', 't', 'y', 'p', 'i', 's', 'o', 'm' };
+        final byte[] heic = { 0, 0, 0, 0x18, 'f', 't', 'y', 'p', 'h', 'e', 'i', 'c' };
+        assertEquals("image/png", MimeType.sniff(png, 0, png.length, unknown).toString());
+        assertEquals("video/mp4", MimeType.sniff(mp4, 0, mp4.length, unknown).toString());
+        assertEquals("image/heic", MimeType.sniff(heic, 0, heic.length, unknown).toString());
+        assertSame(unknown, MimeType.sniff(png, 0, 4, unknown));
+
+        final InputStream html = new ByteArrayInputStream("\n  <!DOCTYPE HTML><html></html>".getBytes());
+        assertEquals("text/html", MimeType.sniff(html, unknown).toString());
+        assertEquals('\n', html.read());
+
+        final byte[] json = " {\"a\": 1}".getBytes();
+        assertEquals("application/json", MimeType.sniff(json, 0, json.length, unknown).toString());
+
+        final byte[] ini = "[section]\nkey = value".getBytes();
+        assertSame(unknown, MimeType.sniff(ini, 0, ini.length, unknown));
+    }
+
 }
@@ -1,12 +1,31 @@
 package com.sdklite.net;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 
 import com.sdklite.io.IOUtil;
 import com.sdklite.net.http.MultipartBody;
+import com.sdklite.net.http.Part;
+import com.sdklite.net.http.PartEntity;
 
 public class MultipartBodyTest {
 
@@ -19,5 +38,243 @@ public class MultipartBodyTest {
                 .build();
         System.out.println(IOUtil.readFully(new InputStreamReader(multipart.getContent())));
     }
-    
+
+    @Test
+    public void multipartBodyContentShouldBeStreamedAsWritten() throws IOException {
+        final File pom = new File(System.getProperty("user.dir"), "pom.xml");
+        final MultipartBody multipart = new MultipartBody.Builder()
+                .addPart("groupId", Build.GROUP_ID)
+                .addPart("pom", pom)
+                .addPart("data", new byte[] { 0, 1, 2, 3 })
+                .build();
+        final ByteArrayOutputStream written = new ByteArrayOutputStream();
+        multipart.writeTo(written);
+
+        final ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+        final InputStream in = multipart.getContent();
+        try {
+            final byte[] buf = new byte[7];
+            for (int n; (n = in.read(buf)) != -1;) {
+                streamed.write(buf, 0, n);
+            }
+        } finally {
+            in.close();
+        }
+
+        assertArrayEquals(written.toByteArray(), streamed.toByteArray());
+    }
+
+    @Test
+    public void multipartBodyContentLengthShouldBeExact() throws IOException {
+        final File pom = new File(System.getProperty("user.dir"), "pom.xml");
+        final MultipartBody multipart = new MultipartBody.Builder()
+                .addPart("groupId", Build.GROUP_ID)
+                .addPart("pom", pom)
+                .build();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        multipart.writeTo(out);
+        assertEquals(out.size(), multipart.getContentLength());
+    }
+
+    @Test
+    public void multipartBodyShouldBeWrittenToChannelProperly() throws IOException {
+        final File pom = new File(System.getProperty("user.dir"), "pom.xml");
+        final MultipartBody multipart = new MultipartBody.Builder()
+                .addPart("groupId", Build.GROUP_ID)
+                .addPart("pom", pom)
+                .addPart("data", new byte[] { 0, 1, 2, 3 })
+                .addPart("artifactId", Build.ARTIFACT_ID)
+                .build();
+        final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        multipart.writeTo(expected);
+
+        final File file = File.createTempFile("multipart", ".tmp");
+        try {
+            final FileOutputStream out = new FileOutputStream(file);
+            try {
+                final FileChannel channel = out.getChannel();
+                multipart.writeTo(channel);
+                multipart.writeTo(channel);
+            } finally {
+                out.close();
+            }
+
+            final ByteArrayOutputStream actual = new ByteArrayOutputStream();
+            IOUtil.copy(new FileInputStream(file), actual);
+
+            final ByteArrayOutputStream twice = new ByteArrayOutputStream();
+            twice.write(expected.toByteArray());
+            twice.write(expected.toByteArray());
+            assertArrayEquals(twice.toByteArray(), actual.toByteArray());
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static File newTempFile(final int size) throws IOException {
+        final byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) (i * 31);
+        }
+
+        final File file = File.createTempFile("part", ".bin");
+        final FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(data);
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+
+    @Test
+    public void filePartShouldBeTransferredToChannelExactly() throws IOException {
+        final File file = newTempFile(300 * 1024 + 7);
+        final File target = File.createTempFile("transfer", ".bin");
+
+        try {
+            final PartEntity entity = new MultipartBody.Builder().addPart("file", file).build().getParts().get(0).getEntity();
+            final FileOutputStream out = new FileOutputStream(target);
+            try {
+                entity.writeTo(out.getChannel());
+            } finally {
+                out.close();
+            }
+
+            final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            IOUtil.copy(new FileInputStream(file), expected);
+            final ByteArrayOutputStream actual = new ByteArrayOutputStream();
+            IOUtil.copy(new FileInputStream(target), actual);
+            assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+        } finally {
+            file.delete();
+            target.delete();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void filePartTransferShouldFailIfChannelAcceptsNothing() throws IOException {
+        final File file = newTempFile(1024);
+
+        try {
+            final PartEntity entity = new MultipartBody.Builder().addPart("file", file).build().getParts().get(0).getEntity();
+            entity.writeTo(new WritableByteChannel() {
+                @Override
+                public int write(final ByteBuffer src) {
+                    return 0;
+                }
+
+                @Override
+                public boolean isOpen() {
+                    return true;
+                }
+
+                @Override
+                public void close() {
+                }
+            });
+            fail();
+        } catch (final IOException e) {
+            // expected
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void multipartBodyWriteShouldFailIfChannelAcceptsNothing() throws IOException {
+        final MultipartBody multipart = new MultipartBody.Builder()
+                .addPart("text", "value")
+                .addPart("data", new byte[] { 0, 1, 2, 3 })
+                .build();
+
+        try {
+            multipart.writeTo(new GatheringByteChannel() {
+                @Override
+                public int write(final ByteBuffer src) {
+                    return 0;
+                }
+
+                @Override
+                public long write(final ByteBuffer[] srcs, final int offset, final int length) {
+                    return 0;
+                }
+
+                @Override
+                public long write(final ByteBuffer[] srcs) {
+                    return 0;
+                }
+
+                @Override
+                public boolean isOpen() {
+                    return true;
+                }
+
+                @Override
+                public void close() {
+                }
+            });
+            fail();
+        } catch (final IOException e) {
+            // expected
+        }
+
+        try {
+            multipart.getParts().get(1).getEntity().writeTo(new WritableByteChannel() {
+                @Override
+                public int write(final ByteBuffer src) {
+                    return 0;
+                }
+
+                @Override
+                public boolean isOpen() {
+                    return true;
+                }
+
+                @Override
+                public void close() {
+                }
+            });
+            fail();
+        } catch (final IOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void streamPartShouldBeSniffedOnDemand() throws IOException {
+        final AtomicInteger reads = new AtomicInteger();
+        final InputStream in = new ByteArrayInputStream("<?xml version=\"1.0\"?><a/>".getBytes()) {
+            @Override
+            public synchronized int read(final byte[] b, final int off, final int len) {
+                reads.incrementAndGet();
+                return super.read(b, off, len);
+            }
+        };
+        final MultipartBody multipart = new MultipartBody.Builder().addPart("xml", in).build();
+        final Part part = multipart.getParts().get(0);
+        assertNull(part.getHeader("Content-Type"));
+        assertEquals(2, part.getHeaders().size());
+        assertEquals(0, reads.get());
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        multipart.writeTo(out);
+        assertTrue(out.toString("UTF-8").contains("Content-Type: application/xml\r\n"));
+        assertTrue(out.toString("UTF-8").contains("<?xml version=\"1.0\"?><a/>"));
+        assertEquals("application/xml", multipart.getParts().get(0).getEntity().getContentType().toString());
+    }
+
+    @Test(expected = IOException.class)
+    public void streamPartSniffingFailureShouldBeThrownOnWrite() throws IOException {
+        final InputStream in = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("broken");
+            }
+        };
+        final MultipartBody multipart = new MultipartBody.Builder().addPart("broken", in).build();
+        assertNull(multipart.getParts().get(0).getHeader("Content-Type"));
+        multipart.writeTo(new ByteArrayOutputStream());
+    }
+
 }
@@ -0,0 +1,123 @@
+package com.sdklite.net;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+
+import org.junit.Test;
+
+import com.sdklite.io.IOUtil;
+import com.sdklite.net.http.MultipartBody;
+import com.sdklite.net.http.MultipartParser;
+import com.sdklite.net.http.Part;
+
+public class MultipartParserTest {
+
+    @Test
+    public void multipartBodyShouldBeParsedProperly() throws IOException {
+        final MultipartBody multipart = new MultipartBody.Builder()
+                .addPart("groupId", Build.GROUP_ID)
+                .addPart("artifactId", Build.ARTIFACT_ID)
+                .addPart("version", Build.VERSION)
+                .build();
+        final MultipartParser parser = new MultipartParser(multipart.getContent(), multipart.getContentType());
+
+        try {
+            assertPart(parser.next(), "groupId", Build.GROUP_ID);
+            assertPart(parser.next(), "artifactId", Build.ARTIFACT_ID);
+            assertPart(parser.next(), "version", Build.VERSION);
+            assertFalse(parser.hasNext());
+        } finally {
+            parser.close();
+        }
+    }
+
+    @Test
+    public void unreadPartsShouldBeBufferedBeyondThreshold() throws IOException {
+        final StringBuilder large = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            large.append(i).append("\r\n--");
+        }
+
+        final MultipartBody multipart = new MultipartBody.Builder()
+                .addPart("small", "small")
+                .addPart("large", large.toString())
+                .addPart("last", "last")
+                .build();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write("preamble\r\n".getBytes());
+        multipart.writeTo(out);
+
+        final MultipartParser parser = new MultipartParser(new ByteArrayInputStream(out.toByteArray()), multipart.getBoundary(), 1024, null);
+
+        try {
+            final Part small = parser.next();
+            final Part big = parser.next();
+            final Part last = parser.next();
+            assertFalse(parser.hasNext());
+            assertPart(last, "last", "last");
+            assertPart(big, "large", large.toString());
+            assertPart(small, "small", "small");
+        } finally {
+            parser.close();
+        }
+    }
+
+    @Test
+    public void filenameShouldBeParsed() throws IOException {
+        final String body = "--xyz\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"a;b.txt\"\r\n"
+                + "\r\n"
+                + "hello\r\n"
+                + "--xyz--\r\n";
+        final MultipartParser parser = new MultipartParser(new ByteArrayInputStream(body.getBytes()), "xyz");
+
+        try {
+            final Part part = parser.next();
+            assertEquals("a;b.txt", part.getEntity().getFilename());
+            assertEquals("text/plain", part.getEntity().getContentType().toString());
+            assertPart(part, "file", "hello");
+            assertFalse(parser.hasNext());
+        } finally {
+            parser.close();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedBodyShouldBeRejected() throws IOException {
+        final String body = "--xyz\r\nContent-Disposition: form-data; name=\"a\"\r\n\r\nhello";
+        final MultipartParser parser = new MultipartParser(new ByteArrayInputStream(body.getBytes()), "xyz");
+
+        try {
+            IOUtil.readFully(new InputStreamReader(parser.next().getEntity().getContent()));
+        } finally {
+            parser.close();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void malformedContentTypeShouldBeRejected() throws IOException {
+        final String body = "--xyz\r\nContent-Disposition: form-data; name=\"a\"\r\nContent-Type: text/plain garbage\r\n\r\nhello\r\n--xyz--\r\n";
+        final MultipartParser parser = new MultipartParser(new ByteArrayInputStream(body.getBytes()), "xyz");
+
+        try {
+            parser.next();
+        } finally {
+            parser.close();
+        }
+    }
+
+    private static void assertPart(final Part part, final String name, final String content) throws IOException {
+        assertTrue(null != part);
+        assertEquals(name, part.getName());
+        assertNull(part.getHeader("X-Unknown"));
+        assertEquals(content, IOUtil.readFully(new InputStreamReader(part.getEntity().getContent(), "UTF-8")));
+    }
+
+}
@@ -0,0 +1,415 @@
+package com.sdklite.net;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.UnknownHostException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sdklite.net.http.HttpBody;
+import com.sdklite.net.http.HttpMethod;
+import com.sdklite.net.http.HttpRequest;
+import com.sdklite.net.http.HttpResponse;
+import com.sdklite.net.http.NioHttpClient;
+
+public class NioHttpClientTest {
+
+    private static final Charset US_ASCII = Charset.forName("US-ASCII");
+
+    private static final int LARGE_SIZE = 1024 * 1024;
+
+    private ServerSocket server;
+
+    private ExecutorService handlers;
+
+    private NioHttpClient client;
+
+    private final CountDownLatch streaming = new CountDownLatch(1);
+
+    private final CountDownLatch aborted = new CountDownLatch(1);
+
+    @Before
+    public void setUp() throws IOException {
+        this.server = new ServerSocket(0, 1024, InetAddress.getByName("127.0.0.1"));
+        this.handlers = Executors.newCachedThreadPool();
+        this.handlers.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    for (;;) {
+                        final Socket socket = server.accept();
+                        handlers.execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                try {
+                                    serve(socket);
+                                } catch (final IOException e) {
+                                    aborted.countDown();
+                                } finally {
+                                    try {
+                                        socket.close();
+                                    } catch (final IOException e) {
+                                    }
+                                }
+                            }
+                        });
+                    }
+                } catch (final IOException e) {
+                    // server closed
+                }
+            }
+        });
+        this.client = new NioHttpClient.Builder().setDnsResolver(new DnsResolver() {
+            @Override
+            public List<InetAddress> resolve(final String hostname) throws UnknownHostException {
+                if (!"loopback.test".equals(hostname)) {
+                    throw new UnknownHostException(hostname);
+                }
+                return Arrays.asList(InetAddress.getByName("127.0.0.1"));
+            }
+        }).build();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        this.client.close();
+        this.server.close();
+        this.handlers.shutdownNow();
+    }
+
+    private void serve(final Socket socket) throws IOException {
+        final InputStream in = socket.getInputStream();
+        final ByteArrayOutputStream head = new ByteArrayOutputStream();
+        for (int b; !head.toString("US-ASCII").endsWith("\r\n\r\n");) {
+            if ((b = in.read()) < 0) {
+                return;
+            }
+            head.write(b);
+        }
+
+        final String[] lines = head.toString("US-ASCII").split("\r\n");
+        final String path = lines[0].split(" ")[1];
+        int contentLength = 0;
+        boolean chunked = false;
+        for (final String line : lines) {
+            if (line.toLowerCase(Locale.US).startsWith("content-length:")) {
+                contentLength = Integer.parseInt(line.substring(15).trim());
+            } else if (line.toLowerCase(Locale.US).equals("transfer-encoding: chunked")) {
+                chunked = true;
+            }
+        }
+
+        final byte[] body;
+        if (chunked) {
+            final ByteArrayOutputStream chunks = new ByteArrayOutputStream();
+            for (int size; (size = Integer.parseInt(readLine(in), 16)) > 0; readLine(in)) {
+                chunks.write(readFully(in, size));
+            }
+            readLine(in);
+            body = chunks.toByteArray();
+        } else {
+            body = readFully(in, contentLength);
+        }
+
+        final OutputStream out = socket.getOutputStream();
+        if ("/hello".equals(path)) {
+            out.write("HTTP/1.1 200 OK\r\nContent-Type: text/plain\r\nContent-Length: 5\r\n\r\nhello".getBytes(US_ASCII));
+        } else if ("/chunked".equals(path)) {
+            out.write("HTTP/1.1 100 Continue\r\n\r\nHTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n5;name=value\r\nhello\r\n7\r\n, world\r\n0\r\nX-Trailer: 1\r\n\r\n".getBytes(US_ASCII));
+        } else if ("/eof".equals(path)) {
+            out.write("HTTP/1.0 200 OK\r\n\r\nuntil the end".getBytes(US_ASCII));
+        } else if ("/echo".equals(path)) {
+            out.write(("HTTP/1.1 201 Created\r\nContent-Length: " + body.length + "\r\n\r\n").getBytes(US_ASCII));
+            out.write(body);
+        } else if ("/endless".equals(path)) {
+            out.write("HTTP/1.0 200 OK\r\n\r\n".getBytes(US_ASCII));
+            this.streaming.countDown();
+            for (final byte[] chunk = new byte[8192];;) {
+                out.write(chunk);
+            }
+        } else if ("/large".equals(path)) {
+            out.write(("HTTP/1.1 200 OK\r\nContent-Length: " + LARGE_SIZE + "\r\n\r\n").getBytes(US_ASCII));
+            out.write(newLargeBody());
+        } else {
+            out.write("HTTP/1.1 404 Not Found\r\nContent-Length: 0\r\n\r\n".getBytes(US_ASCII));
+        }
+        out.flush();
+    }
+
+    private static String readLine(final InputStream in) throws IOException {
+        final StringBuilder line = new StringBuilder();
+        for (int b; '\n' != (b = in.read());) {
+            if (b < 0) {
+                throw new IOException("Unexpected end of stream");
+            }
+            if ('\r' != b) {
+                line.append((char) b);
+            }
+        }
+        return line.toString();
+    }
+
+    private static byte[] readFully(final InputStream in, final int length) throws IOException {
+        final byte[] buf = new byte[length];
+        for (int n = 0, count; n < length; n += count) {
+            if ((count = in.read(buf, n, length - n)) < 0) {
+                throw new IOException("Unexpected end of stream");
+            }
+        }
+        return buf;
+    }
+
+    private static HttpBody newEntity(final byte[] content, final long length) {
+        return new HttpBody() {
+            @Override
+            public MimeType getContentType() {
+                return null;
+            }
+
+            @Override
+            public long getContentLength() {
+                return length;
+            }
+
+            @Override
+            public InputStream getContent() {
+                return new ByteArrayInputStream(content);
+            }
+        };
+    }
+
+    private static byte[] newLargeBody() {
+        final byte[] body = new byte[LARGE_SIZE];
+        for (int i = 0; i < body.length; i++) {
+            body[i] = (byte) i;
+        }
+        return body;
+    }
+
+    private static byte[] read(final HttpResponse response) throws IOException {
+        final InputStream in = response.getEntity().getContent();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buf = new byte[8192];
+        try {
+            for (int n; (n = in.read(buf)) != -1;) {
+                out.write(buf, 0, n);
+            }
+        } finally {
+            in.close();
+        }
+        return out.toByteArray();
+    }
+
+    private String url(final String path) {
+        return "http://loopback.test:" + this.server.getLocalPort() + path;
+    }
+
+    private HttpResponse get(final String path) throws Exception {
+        return this.client.execute(new HttpRequest.Builder().setUrl(url(path)).build()).get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void fixedLengthResponseShouldBeReceived() throws Exception {
+        final HttpResponse response = get("/hello");
+        assertEquals(200, response.getStatusCode());
+        assertEquals("OK", response.getReasonPhrase());
+        assertEquals("text/plain", response.getEntity().getContentType().toString());
+        assertEquals(5, response.getEntity().getContentLength());
+        assertEquals("hello", new String(read(response), US_ASCII));
+    }
+
+    @Test
+    public void chunkedResponseShouldBeDecoded() throws Exception {
+        final HttpResponse response = get("/chunked");
+        assertEquals(200, response.getStatusCode());
+        assertEquals(-1, response.getEntity().getContentLength());
+        assertEquals("hello, world", new String(read(response), US_ASCII));
+    }
+
+    @Test
+    public void responseShouldBeDelimitedByEndOfStream() throws Exception {
+        final HttpResponse response = get("/eof");
+        assertEquals("HTTP/1.0", response.getProtocol());
+        assertEquals("until the end", new String(read(response), US_ASCII));
+    }
+
+    @Test
+    public void requestEntityShouldBeSent() throws Exception {
+        final HttpRequest request = new HttpRequest.Builder()
+                .setMethod(HttpMethod.POST)
+                .setUrl(url("/echo"))
+                .setEntity(HttpBody.newInstance("text/plain", "ping"))
+                .build();
+        final HttpResponse response = this.client.execute(request).get(10, TimeUnit.SECONDS);
+        assertEquals(201, response.getStatusCode());
+        assertEquals("ping", new String(read(response), US_ASCII));
+    }
+
+    @Test
+    public void largeRequestEntityShouldBeStreamed() throws Exception {
+        final HttpRequest request = new HttpRequest.Builder()
+                .setMethod(HttpMethod.PUT)
+                .setUrl(url("/echo"))
+                .setEntity(newEntity(newLargeBody(), LARGE_SIZE))
+                .build();
+        final HttpResponse response = this.client.execute(request).get(10, TimeUnit.SECONDS);
+        assertArrayEquals(newLargeBody(), read(response));
+    }
+
+    @Test
+    public void requestEntityOfUnknownLengthShouldBeChunked() throws Exception {
+        final HttpRequest request = new HttpRequest.Builder()
+                .setMethod(HttpMethod.POST)
+                .setUrl(url("/echo"))
+                .setEntity(newEntity(newLargeBody(), -1))
+                .build();
+        final HttpResponse response = this.client.execute(request).get(10, TimeUnit.SECONDS);
+        assertArrayEquals(newLargeBody(), read(response));
+    }
+
+    @Test
+    public void requestEntityShorterThanContentLengthShouldFail() throws Exception {
+        final HttpRequest request = new HttpRequest.Builder()
+                .setMethod(HttpMethod.POST)
+                .setUrl(url("/echo"))
+                .setEntity(newEntity("ping".getBytes(US_ASCII), 10))
+                .build();
+
+        try {
+            this.client.execute(request).get(10, TimeUnit.SECONDS);
+            fail();
+        } catch (final ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+    }
+
+    @Test
+    public void largeResponseShouldBeStreamedWithBackPressure() throws Exception {
+        final HttpResponse response = get("/large");
+        final InputStream in = response.getEntity().getContent();
+
+        // let the content buffer fill up before consuming
+        Thread.sleep(200);
+        assertTrue(in.available() < LARGE_SIZE);
+        assertArrayEquals(newLargeBody(), read(response));
+    }
+
+    @Test
+    public void contentShouldBeReadableInDependentStage() throws Exception {
+        final byte[] body = this.client.execute(new HttpRequest.Builder().setUrl(url("/large")).build()).thenApply(new Function<HttpResponse, byte[]>() {
+            @Override
+            public byte[] apply(final HttpResponse response) {
+                try {
+                    return read(response);
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }).get(10, TimeUnit.SECONDS);
+        assertArrayEquals(newLargeBody(), body);
+    }
+
+    @Test
+    public void cancelledRequestShouldCloseConnection() throws Exception {
+        final CompletableFuture<HttpResponse> future = this.client.execute(new HttpRequest.Builder().setUrl(url("/endless")).build());
+        assertTrue(this.streaming.await(10, TimeUnit.SECONDS));
+        assertTrue(future.cancel(false));
+        assertTrue(this.aborted.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void resolverThreadsShouldBeStoppedOnClose() throws Exception {
+        assertEquals("hello", new String(read(get("/hello")), US_ASCII));
+        assertTrue(hasThread("http-dns"));
+        this.client.close();
+
+        final long deadline = System.currentTimeMillis() + 10000;
+        while (hasThread("http-dns") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+
+        assertFalse(hasThread("http-dns"));
+    }
+
+    private static boolean hasThread(final String prefix) {
+        for (final Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.isAlive() && thread.getName().startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void concurrentRequestsShouldBeMultiplexed() throws Exception {
+        final List<CompletableFuture<HttpResponse>> futures = new ArrayList<CompletableFuture<HttpResponse>>();
+        for (int i = 0; i < 500; i++) {
+            futures.add(this.client.execute(new HttpRequest.Builder().setUrl(url("/hello")).build()));
+        }
+
+        for (final CompletableFuture<HttpResponse> future : futures) {
+            assertEquals("hello", new String(read(future.get(30, TimeUnit.SECONDS)), US_ASCII));
+        }
+    }
+
+    @Test
+    public void unknownHostShouldFail() throws Exception {
+        try {
+            this.client.execute(new HttpRequest.Builder().setUrl("http://unknown.test/").build()).get(10, TimeUnit.SECONDS);
+            fail();
+        } catch (final ExecutionException e) {
+            assertTrue(e.getCause() instanceof UnknownHostException);
+        }
+    }
+
+    @Test
+    public void refusedConnectionShouldFail() throws Exception {
+        final String url = url("/hello");
+        this.server.close();
+
+        try {
+            this.client.execute(new HttpRequest.Builder().setUrl(url).build()).get(10, TimeUnit.SECONDS);
+            fail();
+        } catch (final ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+    }
+
+    @Test
+    public void secureSchemeShouldBeRejected() throws Exception {
+        try {
+            this.client.execute(new HttpRequest.Builder().setUrl("https://loopback.test/").build()).get(10, TimeUnit.SECONDS);
+            fail();
+        } catch (final ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+    }
+
+}
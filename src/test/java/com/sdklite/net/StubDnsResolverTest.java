@@ -0,0 +1,323 @@
+package com.sdklite.net;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class StubDnsResolverTest {
+
+    /**
+     * The in-process DNS server which answers {@code 10.0.0.1} and
+     * {@code fd00::1} for any name except {@code nx.test}
+     */
+    private static final class FakeDnsServer implements Closeable {
+
+        final DatagramSocket udp;
+
+        final ServerSocket tcp;
+
+        final AtomicInteger udpQueries = new AtomicInteger();
+
+        final AtomicInteger tcpQueries = new AtomicInteger();
+
+        volatile int drop;
+
+        volatile boolean truncate;
+
+        volatile int ttl = 300;
+
+        volatile int rcode;
+
+        volatile boolean spoof;
+
+        FakeDnsServer() throws IOException {
+            this.udp = new DatagramSocket(0, InetAddress.getByName("127.0.0.1"));
+            this.tcp = new ServerSocket(this.udp.getLocalPort(), 50, InetAddress.getByName("127.0.0.1"));
+
+            final Thread udpThread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    final byte[] buf = new byte[512];
+
+                    try {
+                        for (;;) {
+                            final DatagramPacket packet = new DatagramPacket(buf, buf.length);
+                            udp.receive(packet);
+                            udpQueries.incrementAndGet();
+
+                            if (drop > 0) {
+                                drop--;
+                                continue;
+                            }
+
+                            final byte[] query = Arrays.copyOf(buf, packet.getLength());
+                            if (spoof) {
+                                // same id but another question, which must not be accepted
+                                final byte[] forged = query.clone();
+                                forged[13] = (byte) ('z' == forged[13] ? 'y' : 'z');
+                                final byte[] response = answer(forged, false);
+                                udp.send(new DatagramPacket(response, response.length, packet.getSocketAddress()));
+                            }
+
+                            final byte[] response = answer(query, truncate);
+                            udp.send(new DatagramPacket(response, response.length, packet.getSocketAddress()));
+                        }
+                    } catch (final IOException e) {
+                        // closed
+                    }
+                }
+            });
+            udpThread.setDaemon(true);
+            udpThread.start();
+
+            final Thread tcpThread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (;;) {
+                            final Socket socket = tcp.accept();
+                            tcpQueries.incrementAndGet();
+
+                            try {
+                                final DataInputStream in = new DataInputStream(socket.getInputStream());
+                                final byte[] query = new byte[in.readUnsignedShort()];
+                                in.readFully(query);
+
+                                final byte[] response = answer(query, false);
+                                final DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+                                out.writeShort(response.length);
+                                out.write(response);
+                                out.flush();
+                            } finally {
+                                socket.close();
+                            }
+                        }
+                    } catch (final IOException e) {
+                        // closed
+                    }
+                }
+            });
+            tcpThread.setDaemon(true);
+            tcpThread.start();
+        }
+
+        InetSocketAddress getAddress() {
+            return (InetSocketAddress) this.udp.getLocalSocketAddress();
+        }
+
+        byte[] answer(final byte[] query, final boolean truncated) {
+            int end = 12;
+            final StringBuilder name = new StringBuilder();
+            for (int n; 0 != (n = query[end++]); end += n) {
+                name.append(name.length() > 0 ? "." : "").append(new String(query, end, n));
+            }
+
+            final int type = ((query[end] & 0xff) << 8) | (query[end + 1] & 0xff);
+            end += 4;
+
+            final boolean nx = "nx.test".equals(name.toString());
+            final byte host = (byte) (name.charAt(0) == 'z' || name.charAt(0) == 'y' ? 6 : 1);
+            final byte[] rdata = type == 1 ? new byte[] { 10, 0, 0, host } : new byte[] { (byte) 0xfd, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, host };
+            final int rcode = nx ? 3 : this.rcode;
+            final boolean hasAnswer = 0 == rcode && !truncated;
+
+            final ByteBuffer buf = ByteBuffer.allocate(end + (hasAnswer ? 12 + rdata.length : 0));
+            buf.put(query, 0, end);
+            buf.putShort(2, (short) (0x8180 | (truncated ? 0x0200 : 0) | rcode));
+            buf.putShort(6, (short) (hasAnswer ? 1 : 0));
+
+            if (hasAnswer) {
+                buf.putShort((short) 0xc00c);
+                buf.putShort((short) type);
+                buf.putShort((short) 1);
+                buf.putInt(this.ttl);
+                buf.putShort((short) rdata.length);
+                buf.put(rdata);
+            }
+
+            return buf.array();
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.udp.close();
+            this.tcp.close();
+        }
+    }
+
+    private FakeDnsServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        this.server = new FakeDnsServer();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        this.server.close();
+    }
+
+    private StubDnsResolver.Builder newBuilder() {
+        return new StubDnsResolver.Builder().addNameserver(this.server.getAddress()).setTimeout(200, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void addressesShouldBeQueriedInParallel() throws UnknownHostException {
+        final List<InetAddress> addresses = newBuilder().build().resolve("example.test");
+        assertEquals(2, addresses.size());
+        assertEquals("10.0.0.1", addresses.get(0).getHostAddress());
+        assertEquals(16, addresses.get(1).getAddress().length);
+        assertEquals("example.test", addresses.get(1).getHostName());
+        assertEquals(2, this.server.udpQueries.get());
+    }
+
+    @Test
+    public void ipv6CouldBeDisabled() throws UnknownHostException {
+        final List<InetAddress> addresses = newBuilder().setIpv6Enabled(false).build().resolve("example.test");
+        assertEquals(1, addresses.size());
+        assertEquals(1, this.server.udpQueries.get());
+    }
+
+    @Test
+    public void recordTtlShouldBeHonored() throws UnknownHostException {
+        final StubDnsResolver resolver = newBuilder().setIpv6Enabled(false).build();
+        resolver.resolve("example.test");
+        resolver.resolve("example.test");
+        assertEquals(1, this.server.udpQueries.get());
+
+        this.server.ttl = 0;
+        resolver.resolve("another.test");
+        resolver.resolve("another.test");
+        assertEquals(3, this.server.udpQueries.get());
+    }
+
+    @Test
+    public void lostQueriesShouldBeRetried() throws UnknownHostException {
+        this.server.drop = 2;
+        final List<InetAddress> addresses = newBuilder().setRetries(1).build().resolve("example.test");
+        assertEquals(2, addresses.size());
+        assertEquals(4, this.server.udpQueries.get());
+    }
+
+    @Test
+    public void exhaustedRetriesShouldFail() {
+        this.server.drop = Integer.MAX_VALUE;
+
+        try {
+            newBuilder().setRetries(1).build().resolve("example.test");
+            fail();
+        } catch (final UnknownHostException e) {
+            assertTrue(e.getMessage().contains("timed out"));
+        }
+    }
+
+    @Test
+    public void truncatedResponseShouldFallBackToTcp() throws UnknownHostException {
+        this.server.truncate = true;
+        final List<InetAddress> addresses = newBuilder().build().resolve("example.test");
+        assertEquals(2, addresses.size());
+        assertEquals(2, this.server.tcpQueries.get());
+    }
+
+    @Test
+    public void nonexistentDomainShouldFail() {
+        try {
+            newBuilder().build().resolve("nx.test");
+            fail();
+        } catch (final UnknownHostException e) {
+            assertEquals("nx.test", e.getMessage());
+        }
+    }
+
+    @Test
+    public void literalShouldNotBeQueried() throws UnknownHostException {
+        final StubDnsResolver resolver = newBuilder().build();
+        assertEquals("192.168.1.1", resolver.resolve("192.168.1.1").get(0).getHostAddress());
+        assertEquals(16, resolver.resolve("::1").get(0).getAddress().length);
+        assertEquals(0, this.server.udpQueries.get());
+    }
+
+    @Test
+    public void responseOfAnotherQuestionShouldBeIgnored() throws UnknownHostException {
+        this.server.spoof = true;
+        final List<InetAddress> addresses = newBuilder().setIpv6Enabled(false).build().resolve("example.test");
+        assertEquals(1, addresses.size());
+        assertEquals("10.0.0.1", addresses.get(0).getHostAddress());
+    }
+
+    @Test
+    public void serverFailureShouldFailOverImmediately() throws IOException {
+        final FakeDnsServer healthy = new FakeDnsServer();
+        this.server.rcode = 2; // SERVFAIL
+
+        try {
+            final long start = System.nanoTime();
+            final List<InetAddress> addresses = new StubDnsResolver.Builder()
+                    .addNameserver(this.server.getAddress())
+                    .addNameserver(healthy.getAddress())
+                    .setTimeout(5, TimeUnit.SECONDS)
+                    .build()
+                    .resolve("example.test");
+            assertEquals(2, addresses.size());
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+        } finally {
+            healthy.close();
+        }
+    }
+
+    @Test
+    public void refusedQueriesShouldFailWhenRetriesAreExhausted() {
+        this.server.rcode = 5; // REFUSED
+
+        try {
+            newBuilder().setRetries(1).setIpv6Enabled(false).build().resolve("example.test");
+            fail();
+        } catch (final UnknownHostException e) {
+            assertTrue(e.getMessage().contains("server failure"));
+            assertEquals(2, this.server.udpQueries.get());
+        }
+    }
+
+    @Test
+    public void invalidSettingsShouldBeRejected() {
+        try {
+            newBuilder().setRetries(-1);
+            fail();
+        } catch (final IllegalArgumentException e) {
+        }
+
+        try {
+            newBuilder().setTimeout(0, TimeUnit.SECONDS);
+            fail();
+        } catch (final IllegalArgumentException e) {
+        }
+
+        try {
+            newBuilder().setMaxTtl(-1, TimeUnit.SECONDS);
+            fail();
+        } catch (final IllegalArgumentException e) {
+        }
+    }
+
+}